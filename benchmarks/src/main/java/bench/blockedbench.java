@@ -0,0 +1,71 @@
+package bench;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/*
+  blockedbloomfilter against bloomfilter12 (MURMUR3, 7 hash functions) at the same 1% false positive rate, holding the
+  dictionary (n = 0) or n made up words, enough for the filter to outgrow the caches. Half the probes were added,
+  half were not.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class blockedbench {
+
+    static final double FALSE_POSITIVE = 0.01;
+    static final int K = 7;                         // optimal for bloomfilter12 at 1%
+    static final double BITS_PER_WORD = 9.6;        // -ln(0.01) / ln(2)^2
+    static final int PROBES = 1 << 20;              // for n words: too many for the lines they touch to stay cached
+
+    @Param({ "using hashtable" })
+    public String data;
+
+    @Param({ "BLOOMFILTER12", "BLOCKED" })
+    public String filter;
+
+    @Param({ "0", "5000000" })
+    public int n;
+
+    private spelling.filter bits;
+    private String[] probes;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        Random random = new Random(wordmix.SEED);
+        String[] words = n == 0 ? wordmix.dictionary(data) : null;
+        int size = n == 0 ? words.length : n;
+        bits = filter.equals("BLOCKED") ? spelling.load().blockedbloomfilter(size, FALSE_POSITIVE)
+                                        : spelling.load().bloomfilter(size, BITS_PER_WORD, K, true);
+        probes = new String[n == 0 ? wordmix.SIZE : PROBES];
+        for (int i = 0; i < size; i++)
+        {
+            String word = words != null ? words[i] : madeUp(random);
+            bits.add(word);
+            if (i < probes.length / 2)
+                probes[2 * i] = word;
+        }
+        for (int i = 0; i < probes.length / 2; i++)
+            probes[2 * i + 1] = madeUp(random) + "-";   // never added
+        Collections.shuffle(Arrays.asList(probes), random);
+    }
+
+    private static String madeUp(Random random)
+    {
+        return Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+    }
+
+    @Benchmark
+    public boolean contains()
+    {
+        return bits.contains(probes[next++ & (probes.length - 1)]);
+    }
+}
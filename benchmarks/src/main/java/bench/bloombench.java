@@ -0,0 +1,66 @@
+package bench;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/*
+  bloomfilter12.add and contains with k hash functions, both hash modes, on a filter of 10 bits per dictionary word
+  holding the whole dictionary. Half the probes are dictionary words, half are dictionary words with a letter replaced.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class bloombench {
+
+    static final double BITS_PER_WORD = 10;
+
+    @Param({ "using hashtable" })
+    public String data;
+
+    @Param({ "1", "3", "5", "7", "10" })
+    public int k;
+
+    @Param({ "MD5", "MURMUR3" })
+    public String hash;
+
+    private spelling.filter filter;
+    private String[] words;
+    private String[] probes;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        String[] dictionary = wordmix.dictionary(data);
+        filter = spelling.load().bloomfilter(dictionary.length, BITS_PER_WORD, k, hash.equals("MURMUR3"));
+        for (String word : dictionary)
+            filter.add(word);
+
+        Random random = new Random(wordmix.SEED);
+        words = new String[wordmix.SIZE];
+        probes = new String[wordmix.SIZE];
+        for (int i = 0; i < wordmix.SIZE; i++)
+        {
+            words[i] = wordmix.pick(dictionary, random);
+            probes[i] = i % 2 == 0 ? wordmix.pick(dictionary, random) : wordmix.replace(wordmix.pick(dictionary, random), random);
+        }
+    }
+
+    @Benchmark
+    public void add()
+    {
+        filter.add(words[next++ & (words.length - 1)]);
+    }
+
+    @Benchmark
+    public boolean contains()
+    {
+        return filter.contains(probes[next++ & (probes.length - 1)]);
+    }
+}
@@ -0,0 +1,39 @@
+package bench;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// spellchecker.checkWord on words it finds as they are, words it finds once their punctuation is stripped, and misspellings.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class checkwordbench {
+
+    @Param({ "using hashtable" })
+    public String data;
+
+    @Param({ "hits", "punctuated", "misses" })
+    public String mix;
+
+    private spelling.checker checker;
+    private String[] words;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        checker = spelling.load().spellchecker(wordmix.file(data, "dictionary.txt"));
+        words = wordmix.checkWords(data, mix, checker);
+    }
+
+    @Benchmark
+    public String checkWord()
+    {
+        return checker.checkWord(words[next++ & (words.length - 1)]);
+    }
+}
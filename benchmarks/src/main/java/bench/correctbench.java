@@ -0,0 +1,48 @@
+package bench;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/*
+  spellingsuggest.correct on dictionary words of a given length taken one or two edits away from any known word,
+  for each backend, with the correction cache off so every call does the whole search.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class correctbench {
+
+    @Param({ "using hashtable" })
+    public String data;
+
+    @Param({ "EDITS", "SYMMETRIC_DELETE", "BK_TREE", "MYERS_SCAN" })
+    public String backend;
+
+    @Param({ "1", "2" })
+    public int distance;
+
+    @Param({ "4", "7", "10" })
+    public int length;
+
+    private spelling.corrector corrector;
+    private String[] words;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        corrector = spelling.load().spellingsuggest(wordmix.file(data, "wordprobabilityDatabase.txt"), backend);
+        words = wordmix.misspelt(data, corrector, length, distance);
+    }
+
+    @Benchmark
+    public String correct()
+    {
+        return corrector.correct(words[next++ & (words.length - 1)]);
+    }
+}
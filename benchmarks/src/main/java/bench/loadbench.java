@@ -0,0 +1,49 @@
+package bench;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/*
+  Start up cost: loading the dictionary into a dawg, building the Bloom filter of spellchecker12, and counting the
+  frequency corpus. A fresh .snap next to a file (java snapshot ...) is used like the checkers use it, so run once
+  with and once without to see what the snapshots save.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class loadbench {
+
+    @Param({ "using hashtable" })
+    public String data;
+
+    private spelling spelling;
+
+    @Setup
+    public void setup()
+    {
+        spelling = bench.spelling.load();
+    }
+
+    @Benchmark
+    public Object dictionary() throws IOException
+    {
+        return spelling.loadDictionary(wordmix.file(data, "dictionary.txt"));
+    }
+
+    @Benchmark
+    public Object bloomfilter() throws IOException
+    {
+        return spelling.loadBloomfilter(wordmix.file(data, "dictionary.txt"));
+    }
+
+    @Benchmark
+    public Object frequencies() throws IOException
+    {
+        return spelling.loadFrequencies(wordmix.file(data, "wordprobabilityDatabase.txt"));
+    }
+}
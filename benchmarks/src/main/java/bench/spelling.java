@@ -0,0 +1,61 @@
+package bench;
+
+import java.io.*;
+
+/*
+  What the benchmarks drive, implemented by spellingbridge.
+  The spell checker classes live in the unnamed package, which code in a named package cannot refer to, and JMH
+  refuses benchmarks in the unnamed package; so the benchmarks see the checkers only through these interfaces and
+  load the one implementation, which does sit in the unnamed package, by name.
+*/
+public interface spelling {
+
+    interface checker
+    {
+        String checkWord(String word);      // spellchecker.checkWord
+        boolean isWord(String word);        // an exact dictionary hit
+    }
+
+    interface filter
+    {
+        void add(String word);
+        boolean contains(String word);
+    }
+
+    interface corrector
+    {
+        String correct(String word);        // spellingsuggest.correct
+        boolean isKnown(String word);       // in the frequency corpus
+        boolean hasKnownEdit(String word);  // some distance 1 edit is in the frequency corpus
+    }
+
+    checker spellchecker(String dictionary) throws IOException;
+
+    // A bloomfilter12 sized for n words at bitsPerWord, with k hash functions.
+    filter bloomfilter(int n, double bitsPerWord, int k, boolean murmur);
+
+    // A blockedbloomfilter sized for n words at falsePositiveProbability.
+    filter blockedbloomfilter(int n, double falsePositiveProbability);
+
+    // backend is EDITS, SYMMETRIC_DELETE, BK_TREE or MYERS_SCAN; the correction cache is off.
+    corrector spellingsuggest(String corpus, String backend) throws IOException;
+
+    // Each load returns what it loaded, for the benchmark to consume.
+    Object loadDictionary(String dictionary) throws IOException;
+
+    Object loadBloomfilter(String dictionary) throws IOException;
+
+    Object loadFrequencies(String corpus) throws IOException;
+
+    static spelling load()
+    {
+        try
+        {
+            return (spelling)Class.forName("spellingbridge").getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("spellingbridge is missing from the class path", e);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package bench;
+
+import java.io.*;
+import java.util.*;
+
+/*
+  The word mixes the benchmarks run on, drawn from the dictionary.txt and inputtext.txt of the data directory with a
+  fixed seed, so every run, before and after a change, checks exactly the same words in the same order.
+  Every mix holds a power of two of words so a benchmark can cycle through it with a mask.
+*/
+final class wordmix {
+
+    static final long SEED = 0x5eed;
+    static final int SIZE = 1024;
+    static final int MISSPELT_SIZE = 256;
+    static final int ATTEMPTS = 1000000;
+
+    static final String[] PUNCTUATION = { ".", ",", "!", ";", ":", ".\"", ",\"", "?\"", "!\"" };
+
+    private wordmix()
+    {
+    }
+
+    static String file(String data, String name) throws FileNotFoundException
+    {
+        File file = new File(data, name);
+        if (!file.isFile())
+            throw new FileNotFoundException(file + " is missing; point -p data= at the directory holding it");
+        return file.getPath();
+    }
+
+    static String[] tokens(String file) throws IOException
+    {
+        ArrayList<String> tokens = new ArrayList<String>();
+        BufferedReader in = new BufferedReader(new FileReader(file));
+        for (String line = in.readLine(); line != null; line = in.readLine())
+        {
+            for (String token : line.split("\\s+"))
+            {
+                if (!token.isEmpty())
+                    tokens.add(token);
+            }
+        }
+        in.close();
+        return tokens.toArray(new String[tokens.size()]);
+    }
+
+    static String[] dictionary(String data) throws IOException
+    {
+        return tokens(file(data, "dictionary.txt"));
+    }
+
+    /*
+      hits: words checkWord finds as they are, half from the dictionary, half from the text.
+      punctuated: dictionary words with the punctuation checkWord strips, quotes and all.
+      misses: misspellings, those of the text and dictionary words with one letter replaced.
+    */
+    static String[] checkWords(String data, String mix, spelling.checker checker) throws IOException
+    {
+        String[] dictionary = dictionary(data);
+        String[] text = tokens(file(data, "inputtext.txt"));
+        Random random = new Random(SEED);
+        String[] words = new String[SIZE];
+        if (mix.equals("hits"))
+        {
+            ArrayList<String> known = new ArrayList<String>();
+            for (String token : text)
+            {
+                if (checker.isWord(token.toLowerCase()))
+                    known.add(token);
+            }
+            for (int i = 0; i < SIZE; i++)
+                words[i] = i % 2 == 0 || known.isEmpty() ? pick(dictionary, random) : known.get(random.nextInt(known.size()));
+        }
+        else if (mix.equals("punctuated"))
+        {
+            for (int i = 0; i < SIZE; i++)
+            {
+                String word = pick(dictionary, random);
+                words[i] = random.nextInt(PUNCTUATION.length + 1) == 0 ? "\"" + word : word + PUNCTUATION[random.nextInt(PUNCTUATION.length)];
+            }
+        }
+        else if (mix.equals("misses"))
+        {
+            ArrayList<String> misspelt = new ArrayList<String>();
+            for (String token : text)
+            {
+                if (isLetters(token) && !checker.isWord(token.toLowerCase()))
+                    misspelt.add(token);
+            }
+            for (int i = 0; i < SIZE; i++)
+            {
+                if (i % 2 == 0 && !misspelt.isEmpty())
+                {
+                    words[i] = misspelt.get(random.nextInt(misspelt.size()));
+                    continue;
+                }
+                String word;
+                do
+                {
+                    word = replace(pick(dictionary, random), random);
+                }
+                while (checker.isWord(word));
+                words[i] = word;
+            }
+        }
+        else
+        {
+            throw new IllegalArgumentException("unknown mix: " + mix);
+        }
+        return words;
+    }
+
+    /*
+      Dictionary words of the given length, known to the frequency corpus, taken distance random edits away from it:
+      unknown themselves, and at distance 2 without any known word at distance 1 either, so correct() has to go
+      through its second stage.
+    */
+    static String[] misspelt(String data, spelling.corrector corrector, int length, int distance) throws IOException
+    {
+        ArrayList<String> pool = new ArrayList<String>();
+        for (String word : dictionary(data))
+        {
+            if (word.length() == length && isLetters(word) && corrector.isKnown(word.toLowerCase()))
+                pool.add(word.toLowerCase());
+        }
+        Random random = new Random(SEED);
+        String[] words = new String[MISSPELT_SIZE];
+        int found = 0;
+        for (int attempt = 0; attempt < ATTEMPTS && !pool.isEmpty() && found < words.length; attempt++)
+        {
+            String word = pool.get(random.nextInt(pool.size()));
+            for (int d = 0; d < distance; d++)
+                word = edit(word, random);
+            if (corrector.isKnown(word) || (distance > 1 && corrector.hasKnownEdit(word)))
+                continue;
+            words[found++] = word;
+        }
+        if (found < words.length)
+            throw new IllegalStateException("only " + found + " known words of length " + length + " misspelt at distance " + distance);
+        return words;
+    }
+
+    static String pick(String[] words, Random random)
+    {
+        return words[random.nextInt(words.length)];
+    }
+
+    static boolean isLetters(String word)
+    {
+        for (int i = 0; i < word.length(); i++)
+        {
+            if (!Character.isLetter(word.charAt(i)))
+                return false;
+        }
+        return word.length() > 0;
+    }
+
+    private static char letter(Random random)
+    {
+        return (char)('a' + random.nextInt(26));
+    }
+
+    static String replace(String word, Random random)
+    {
+        int i = random.nextInt(word.length());
+        return word.substring(0, i) + letter(random) + word.substring(i + 1);
+    }
+
+    // One random deletion, transposition, replacement or insertion.
+    static String edit(String word, Random random)
+    {
+        int i = random.nextInt(word.length());
+        switch (word.length() > 1 ? random.nextInt(4) : 2 + random.nextInt(2))
+        {
+        case 0:
+            return word.substring(0, i) + word.substring(i + 1);
+        case 1:
+            i = Math.min(i, word.length() - 2);
+            return word.substring(0, i) + word.charAt(i + 1) + word.charAt(i) + word.substring(i + 2);
+        case 2:
+            return replace(word, random);
+        default:
+            return word.substring(0, i) + letter(random) + word.substring(i);
+        }
+    }
+}
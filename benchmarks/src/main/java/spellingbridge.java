@@ -0,0 +1,99 @@
+import java.io.*;
+
+import bench.spelling;
+
+// The spell checker classes as the benchmarks see them, see bench.spelling.
+public class spellingbridge implements spelling {
+
+    public spelling.checker spellchecker(String dictionary) throws IOException
+    {
+        final dawg words = dawg.load(dictionary);
+        final spellchecker checker = new spellchecker(words);
+        return new spelling.checker() {
+            public String checkWord(String word) { return checker.checkWord(word); }
+            public boolean isWord(String word) { return words.contains(word); }
+        };
+    }
+
+    public spelling.filter bloomfilter(int n, double bitsPerWord, int k, boolean murmur)
+    {
+        final bloomfilter12<String> filter = new bloomfilter12<String>(bitsPerWord, n, k,
+            murmur ? bloomfilter12.HashMode.MURMUR3 : bloomfilter12.HashMode.MD5);
+        return new spelling.filter() {
+            public void add(String word) { filter.add(word); }
+            public boolean contains(String word) { return filter.contains(word); }
+        };
+    }
+
+    public spelling.filter blockedbloomfilter(int n, double falsePositiveProbability)
+    {
+        final blockedbloomfilter<String> filter = new blockedbloomfilter<String>(falsePositiveProbability, n);
+        return new spelling.filter() {
+            public void add(String word) { filter.add(word); }
+            public boolean contains(String word) { return filter.contains(word); }
+        };
+    }
+
+    public spelling.corrector spellingsuggest(String corpus, String backend) throws IOException
+    {
+        int id;
+        if (backend.equals("EDITS"))
+            id = spellingsuggest.EDITS;
+        else if (backend.equals("SYMMETRIC_DELETE"))
+            id = spellingsuggest.SYMMETRIC_DELETE;
+        else if (backend.equals("BK_TREE"))
+            id = spellingsuggest.BK_TREE;
+        else if (backend.equals("MYERS_SCAN"))
+            id = spellingsuggest.MYERS_SCAN;
+        else
+            throw new IllegalArgumentException("unknown backend: " + backend);
+        final spellingsuggest suggest = new spellingsuggest(corpus, id, symmetricdelete.MAX_DISTANCE, 0);
+        return new spelling.corrector() {
+            public String correct(String word) { return suggest.correct(word); }
+            public boolean isKnown(String word) { return suggest.correct(word).equals(word); }
+            public boolean hasKnownEdit(String word)
+            {
+                for (editgenerator edit = new editgenerator().reset(word, true); edit.next(); )
+                {
+                    if (isKnown(new String(edit.buffer(), 0, edit.length())))
+                        return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Object loadDictionary(String dictionary) throws IOException
+    {
+        return dawg.load(dictionary);
+    }
+
+    // Built the way spellchecker12 builds it when there is no dictionary.bloom to map.
+    public Object loadBloomfilter(String dictionary) throws IOException
+    {
+        scalablebloomfilter<String> filter = new scalablebloomfilter<String>(spellchecker12.FALSE_POSITIVE, spellchecker12.CAPACITY,
+            bloomfilter12.HashMode.MURMUR3);
+        snapshot compiled = snapshot.load(dictionary, snapshot.DICTIONARY);
+        if (compiled != null)
+        {
+            for (int i = 0; i < compiled.size(); i++)
+                filter.add(compiled.words()[i]);
+        }
+        else
+        {
+            BufferedReader in = new BufferedReader(new FileReader(dictionary));
+            for (String line = in.readLine(); line != null; line = in.readLine())
+            {
+                for (String word : line.split("\\s"))
+                    filter.add(word);
+            }
+            in.close();
+        }
+        return filter;
+    }
+
+    public Object loadFrequencies(String corpus) throws IOException
+    {
+        return new spellingsuggest(corpus, spellingsuggest.EDITS, symmetricdelete.MAX_DISTANCE, 0);
+    }
+}
@@ -0,0 +1,243 @@
+import java.io.*;
+import java.util.*;
+
+/*
+  How often each word of the frequency corpus follows each other one, as P(next | previous), for ranking corrections
+  by the word before them. A pair of frequencytable entries is packed into one long, previous in the high half and
+  next in the low half, and the distinct pairs are kept sorted in a long[] searched by bisection, next to a byte[]
+  of their log probabilities quantized to 1/STEPS of a bit: 9 bytes a bigram, against the 100 and more of a
+  HashMap<String, Integer> keyed by "previous next" (java bigrammodel measures both).
+  Pairs the corpus never has back off to the unigram probability of next, discounted by BACKOFF (stupid backoff).
+  The pairs are counted by parallelcounter while it counts the corpus, when context ranking is on or a snapshot is
+  compiled, and kept in the corpus snapshot with it.
+*/
+final class bigrammodel {
+
+    static final int STEPS = 8;                     // quantization steps per bit of -log2 P(next | previous)
+    static final int ABSENT = -1;
+    static final double BACKOFF = Math.log(0.4) / Math.log(2);  // log2 of the discount of an unseen pair
+
+    private final long[] pairs;
+    private final byte[] costs;                     // -log2 P(next | previous) * STEPS, rounded, unsigned, capped at 255
+    private final long tokens;                      // corpus tokens, for the unigram probabilities
+
+    static long pair(int previous, int next)
+    {
+        return (long)previous << 32 | next;
+    }
+
+    /*
+      How often each distinct pair occurs, in an open addressing table of longs probed linearly: one slot per pair
+      however often the corpus has it, where a list of occurrences costs a long for every token. Pairs of entries
+      are never negative, so -1 marks a free slot.
+    */
+    static final class pairtable
+    {
+        private long[] keys;
+        private int[] counts;
+        private int size;
+        private int shift;
+
+        pairtable()
+        {
+            allocate(10);
+        }
+
+        private void allocate(int bits)
+        {
+            keys = new long[1 << bits];
+            Arrays.fill(keys, -1L);
+            counts = new int[1 << bits];
+            shift = 64 - bits;
+        }
+
+        private int slot(long pair)
+        {
+            return (int)((pair * 0x9E3779B97F4A7C15L) >>> shift);
+        }
+
+        // Counts pair count more times.
+        void add(long pair, int count)
+        {
+            if (2 * (size + 1) > keys.length)
+                grow();
+            int slot = slot(pair);
+            while (keys[slot] != -1L && keys[slot] != pair)
+                slot = (slot + 1) & (keys.length - 1);
+            if (keys[slot] == -1L)
+            {
+                keys[slot] = pair;
+                size++;
+            }
+            counts[slot] += count;
+        }
+
+        // Adds the pairs of other, both of their words renumbered through entries.
+        void addAll(pairtable other, int[] entries)
+        {
+            for (int slot = 0; slot < other.keys.length; slot++)
+            {
+                long pair = other.keys[slot];
+                if (pair != -1L)
+                    add(pair(entries[(int)(pair >>> 32)], entries[(int)pair]), other.counts[slot]);
+            }
+        }
+
+        int count(long pair)
+        {
+            for (int slot = slot(pair); keys[slot] != -1L; slot = (slot + 1) & (keys.length - 1))
+            {
+                if (keys[slot] == pair)
+                    return counts[slot];
+            }
+            return 0;
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+        private void grow()
+        {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            allocate(64 - shift + 1);
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++)
+            {
+                if (oldKeys[slot] != -1L)
+                    add(oldKeys[slot], oldCounts[slot]);
+            }
+        }
+
+        // The distinct pairs, sorted.
+        long[] sorted()
+        {
+            long[] sorted = new long[size];
+            int n = 0;
+            for (long pair : keys)
+            {
+                if (pair != -1L)
+                    sorted[n++] = pair;
+            }
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    // Keeps each distinct pair seen once with its quantized probability.
+    bigrammodel(pairtable seen, long tokens)
+    {
+        pairs = seen.sorted();
+        costs = new byte[pairs.length];
+        this.tokens = tokens;
+
+        // one run of pairs per previous word: the sum of their counts is how often that word is followed at all
+        for (int run = 0; run < pairs.length; )
+        {
+            int end = run;
+            long followed = 0;
+            while (end < pairs.length && pairs[end] >>> 32 == pairs[run] >>> 32)
+                followed += seen.count(pairs[end++]);
+            for (int i = run; i < end; i++)
+                costs[i] = (byte)Math.min(255, Math.round(-Math.log(seen.count(pairs[i]) / (double)followed) / Math.log(2) * STEPS));
+            run = end;
+        }
+    }
+
+    // A model as pairs() and costs() give it, read back from a snapshot.
+    bigrammodel(long[] pairs, byte[] costs, long tokens)
+    {
+        this.pairs = pairs;
+        this.costs = costs;
+        this.tokens = tokens;
+    }
+
+    // The distinct pairs, sorted; not to be modified.
+    long[] pairs()
+    {
+        return pairs;
+    }
+
+    // costs()[i] is the quantized cost of pairs()[i]; not to be modified.
+    byte[] costs()
+    {
+        return costs;
+    }
+
+    // The quantized cost of next after previous, 0 .. 255, or ABSENT if the corpus never has that pair.
+    public int cost(int previous, int next)
+    {
+        int i = Arrays.binarySearch(pairs, pair(previous, next));
+        return i < 0 ? ABSENT : costs[i] & 0xFF;
+    }
+
+    // True if the corpus has some word after previous, so it can tell its followers apart.
+    public boolean hasFollowers(int previous)
+    {
+        int i = Arrays.binarySearch(pairs, pair(previous, 0));
+        if (i < 0)
+            i = -i - 1;
+        return i < pairs.length && (int)(pairs[i] >>> 32) == previous;
+    }
+
+    // log2 of how likely next, seen count times in the corpus, follows previous; higher is likelier.
+    public double score(int previous, int next, int count)
+    {
+        int cost = cost(previous, next);
+        if (cost != ABSENT)
+            return -(double)cost / STEPS;
+        return BACKOFF + Math.log((double)count / tokens) / Math.log(2);
+    }
+
+    // Number of distinct bigrams.
+    public int size()
+    {
+        return pairs.length;
+    }
+
+    public long bytes()
+    {
+        return 8L * pairs.length + costs.length;
+    }
+
+    public String toString()
+    {
+        return "bigrams: " + size() + " in " + bytes() / 1024 + " KB, "
+             + String.format("%.1f", size() == 0 ? 0 : bytes() * 1e6 / size() / (1 << 20)) + " MB per million bigrams";
+    }
+
+    // java bigrammodel [corpus]: memory of the model against a HashMap of "previous next" counts, per million bigrams.
+    public static void main(String [] args) throws IOException
+    {
+        String file = args.length > 0 ? args[0] : "wordprobabilityDatabase.txt";
+        long start = System.nanoTime();
+        parallelcounter counter = new parallelcounter(file, true);
+        frequencytable words = new frequencytable(counter.count());
+        bigrammodel model = counter.bigrams(words);
+        long buildMillis = (System.nanoTime() - start) / 1000000;
+
+        long before = usedMemory();
+        HashMap<String, Integer> map = new HashMap<String, Integer>();
+        for (long pair : model.pairs)
+            map.put(words.word((int)(pair >>> 32)) + " " + words.word((int)pair), 1);
+        long mapBytes = usedMemory() - before;
+
+        System.out.println(model.size() + " bigrams of " + model.tokens + " tokens, counted and built in " + buildMillis + " ms");
+        System.out.println("bigrammodel: " + model.bytes() / 1024 + " KB, "
+                         + String.format("%.1f", model.bytes() * 1e6 / model.size() / (1 << 20)) + " MB per million bigrams");
+        System.out.println("HashMap:     " + mapBytes / 1024 + " KB, "
+                         + String.format("%.1f", mapBytes * 1e6 / map.size() / (1 << 20)) + " MB per million bigrams");
+    }
+
+    private static long usedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++)
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,128 @@
+import java.io.Serializable;
+
+/*
+  Split-block Bloom filter: the filter is an array of 512 bit (64 byte, one cache line) blocks and every element sets
+  exactly one bit in each of the 8 longs of a single block. One lookup therefore touches one cache line, where
+  bloomfilter12 sends its k probes to k random lines. Bits live in a long[] addressed with longs, so the filter is not
+  capped at 2^31 bits like java.util.BitSet, and the block is picked by multiply-shift instead of a skewed Math.abs.
+  The block layout and salts follow the split block Bloom filter of Apache Parquet / Impala.
+*/
+public class blockedbloomfilter<E> implements Serializable 
+{
+    private static final long serialVersionUID = 1L;
+
+    static final int WORDS_PER_BLOCK = 8;    // 8 x 64 bits = one 64 byte cache line
+    static final int BITS_PER_BLOCK = WORDS_PER_BLOCK * 64;
+
+    // One odd multiplier per word; the top 6 bits of (hash * salt) pick the bit inside that word.
+    private static final int[] SALT = { 0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d,
+                                        0x705495c7, 0x2df1424b, 0x9efc4947, 0x5c6bfb31 };
+
+    private final long[] words;
+    private final long numberOfBlocks;
+    private final long expectedNumberOfFilterElements; // expected (maximum) number of elements to be added
+    private long numberOfAddedElements; // number of elements actually added to the Bloom filter
+
+    // Constructs an empty filter of the given number of 512 bit blocks.
+    public blockedbloomfilter(long numberOfBlocks, long expectedNumberOfElements) 
+    {
+        if (numberOfBlocks < 1 || numberOfBlocks * WORDS_PER_BLOCK > Integer.MAX_VALUE - 8)
+        {
+            throw new IllegalArgumentException("number of blocks out of range: " + numberOfBlocks);
+        }
+        this.numberOfBlocks = numberOfBlocks;
+        this.expectedNumberOfFilterElements = expectedNumberOfElements;
+        this.words = new long[(int)(numberOfBlocks * WORDS_PER_BLOCK)];
+    }
+
+    // Constructs an empty filter sized for a given false positive probability.
+    public blockedbloomfilter(double falsePositiveProbability, long expectedNumberOfElements) 
+    {
+        this(blocksFor(falsePositiveProbability, expectedNumberOfElements), expectedNumberOfElements);
+    }
+
+    private static long blocksFor(double falsePositiveProbability, long expectedNumberOfElements)
+    {
+        // m = -k * n / ln(1 - p^(1/k)) with k = 8 assumes every block is equally full; grow it until the
+        // uneven (Poisson) block loads still meet p.
+        long blocks = Math.max(1, (long)Math.ceil(-WORDS_PER_BLOCK * (double)expectedNumberOfElements
+                             / Math.log(1 - Math.pow(falsePositiveProbability, 1.0 / WORDS_PER_BLOCK)) / BITS_PER_BLOCK));
+        while (falsePositiveProbability(expectedNumberOfElements, blocks) > falsePositiveProbability)
+        {
+            blocks += Math.max(1, blocks / 64);
+        }
+        return blocks;
+    }
+
+    private int block(long hash)
+    {
+        // multiply-shift maps the upper 32 hash bits uniformly onto [0, numberOfBlocks)
+        return (int)(((hash >>> 32) * numberOfBlocks) >>> 32) * WORDS_PER_BLOCK;
+    }
+
+    public void add(E element) 
+    {
+        long hash = murmur3.hash64(element.toString());
+        int base = block(hash);
+        int low = (int)hash;
+        for (int i = 0; i < WORDS_PER_BLOCK; i++)
+        {
+            words[base + i] |= 1L << ((low * SALT[i]) >>> 26);
+        }
+        numberOfAddedElements ++;
+    }
+
+    /*
+      Returns true if the element could have been inserted into the Bloom filter.
+      Use getFalsePositiveProbability() to calculate the probability of this being correct.
+     */
+    public boolean contains(E element) 
+    {
+        long hash = murmur3.hash64(element.toString());
+        int base = block(hash);
+        int low = (int)hash;
+        for (int i = 0; i < WORDS_PER_BLOCK; i++)
+        {
+            if ((words[base + i] & (1L << ((low * SALT[i]) >>> 26))) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    //return expected probability of false positives.
+    public double expectedFalsePositiveProbability() 
+    {
+        return getFalsePositiveProbability(expectedNumberOfFilterElements);
+    }
+
+    public double getFalsePositiveProbability(double numberOfElements) 
+    {
+        return falsePositiveProbability(numberOfElements, numberOfBlocks);
+    }
+
+    private static double falsePositiveProbability(double numberOfElements, long numberOfBlocks)
+    {
+        // Blocks receive a Poisson(n / blocks) number of elements; a block holding j elements answers a false
+        // positive with probability (1 - (63/64)^j)^8.
+        double lambda = numberOfElements / numberOfBlocks;
+        double poisson = Math.exp(-lambda), probability = 0;
+        int limit = (int)(lambda + 10 * Math.sqrt(lambda) + 20);
+        for (int j = 0; j <= limit; j++)
+        {
+            if (j > 0)
+                poisson *= lambda / j;
+            probability += poisson * Math.pow(1 - Math.pow(63.0 / 64.0, j), WORDS_PER_BLOCK);
+        }
+        return probability;
+    }
+
+    public long bitSize()
+    {
+        return numberOfBlocks * BITS_PER_BLOCK;
+    }
+
+    public long count()
+    {
+        return numberOfAddedElements;
+    }
+}
@@ -17,12 +17,18 @@
 
 
 
-import java.io.Serializable;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.*;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.BitSet;
 import java.util.Collection;
+import java.util.zip.CRC32;
 
 public class bloomfilter12<E> implements Serializable 
 {
@@ -32,6 +38,16 @@ public class bloomfilter12<E> implements Serializable
     private int expectedNumberOfFilterElements; // expected (maximum) number of elements to be added
     private int numberOfAddedElements; // number of elements actually added to the Bloom filter
     private int k; // number of hash functions
+    private HashMode hashMode; // how the k bit indices are derived from an element
+    private transient MappedByteBuffer mapped; // read-only bits of a filter loaded with map(), bitset is null then
+    private long dictionaryChecksum; // checksum of the word list the filter was built from, as stored on disk
+
+    /*
+      MD5 is the original scheme: k digests of (element + index), bit-compatible with filters built before.
+      MURMUR3 hashes the element's characters once with 128-bit MurmurHash3 and derives the k indices from the two
+      halves by double hashing (Kirsch and Mitzenmacher), without allocating anything and without taking a lock.
+    */
+    public enum HashMode { MD5, MURMUR3 }
 
     static final Charset charset = Charset.forName("UTF-8"); // encoding used for storing hash values as strings
 
@@ -54,13 +70,25 @@ public class bloomfilter12<E> implements Serializable
     */
     
     public bloomfilter12(double c, int n, int k) 
+    {
+      this(c, n, k, HashMode.MD5);
+    }
+
+    public bloomfilter12(double c, int n, int k, HashMode hashMode) 
+    {
+      this(c, n, k, hashMode, true);
+    }
+
+    private bloomfilter12(double c, int n, int k, HashMode hashMode, boolean allocate) 
     {
       this.expectedNumberOfFilterElements = n;
       this.k = k;
+      this.hashMode = hashMode;
       this.bitsPerElement = c;
       this.bitSetSize = (int)Math.ceil(c * n);
       numberOfAddedElements = 0;
-      this.bitset = new BitSet(bitSetSize);
+      if (allocate)
+          this.bitset = new BitSet(bitSetSize);
     }
      
     public bloomfilter12(int bitSetSize, int expectedNumberOElements) 
@@ -73,10 +101,16 @@ public class bloomfilter12<E> implements Serializable
 
     // Constructs an empty Bloom filter with a given false positive probability. 
     public bloomfilter12(double falsePositiveProbability, int expectedNumberOfElements) 
+    {
+        this(falsePositiveProbability, expectedNumberOfElements, HashMode.MD5);
+    }
+
+    public bloomfilter12(double falsePositiveProbability, int expectedNumberOfElements, HashMode hashMode) 
     {
         this(Math.ceil(-(Math.log(falsePositiveProbability) / Math.log(2))) / Math.log(2), // c = k / ln(2)
              expectedNumberOfElements,
-             (int)Math.ceil(-(Math.log(falsePositiveProbability) / Math.log(2)))); // k = ceil(-log_2(false prob.))
+             (int)Math.ceil(-(Math.log(falsePositiveProbability) / Math.log(2))), // k = ceil(-log_2(false prob.))
+             hashMode);
     }
 
 
@@ -108,6 +142,53 @@ public class bloomfilter12<E> implements Serializable
         return h;
     }
 
+    /*
+      Sets (or with set == false tests) the k bits of val in MURMUR3 mode.
+      The hash is MurmurHash3_x64_128 (seed 0) of the UTF-16LE bytes of val, read straight from its chars, worked out
+      here from the rounds in murmur3 so both halves stay in locals: nothing is allocated.
+      Bit i is (h1 + i * h2) mod m, with the sign bit cleared rather than Math.abs, so every bit is equally likely.
+    */
+    private boolean murmurProbe(CharSequence val, boolean set)
+    {
+        long start = metrics.ENABLED ? System.nanoTime() : 0;
+        int length = val.length();
+        long h1 = 0, h2 = 0;
+        int i = 0;
+        for (; i + 8 <= length; i += 8) // 16 bytes = 8 chars per block
+        {
+            h1 ^= murmur3.mixK1(murmur3.block(val, i));
+            h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= murmur3.mixK2(murmur3.block(val, i + 4));
+            h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495ab5;
+        }
+        int tail = length - i;
+        if (tail > 4)
+            h2 ^= murmur3.mixK2(murmur3.chars(val, i + 4, tail - 4));
+        if (tail > 0)
+            h1 ^= murmur3.mixK1(murmur3.chars(val, i, Math.min(tail, 4)));
+        h1 ^= 2L * length;
+        h2 ^= 2L * length;
+        h1 += h2;
+        h2 += h1;
+        h1 = murmur3.fmix64(h1);
+        h2 = murmur3.fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+        if (metrics.ENABLED)
+            metrics.BLOOM_HASH.record(System.nanoTime() - start);
+
+        for (int x = 0; x < k; x++)
+        {
+            int bit = (int)(((h1 + x * h2) & Long.MAX_VALUE) % bitSetSize);
+            if (set)
+                setBit(bit, true);
+            else if (!getBit(bit))
+                return false;
+        }
+        return true;
+    }
+
      //return expected probability of false positives.
     public double expectedFalsePositiveProbability() 
     {
@@ -121,17 +202,83 @@ public class bloomfilter12<E> implements Serializable
 
     }
 
+    // The false positive probability predicted for the elements added so far.
+    public double getFalsePositiveProbability() 
+    {
+        return getFalsePositiveProbability(numberOfAddedElements);
+    }
+
+    // The fraction of the bits that are set, counted.
+    public double getFillRatio() 
+    {
+        long set = 0;
+        if (mapped != null)
+        {
+            for (int i = 0; i < mapped.capacity(); i++)
+                set += Integer.bitCount(mapped.get(i) & 0xFF);
+        }
+        else
+        {
+            set = bitset.cardinality();
+        }
+        return (double) set / bitSetSize;
+    }
+
+    // The false positive probability the bits actually set give: a miss passes when all its k bits happen to be set.
+    public double getObservedFalsePositiveProbability() 
+    {
+        return Math.pow(getFillRatio(), k);
+    }
+
+    public int getBitSetSize() 
+    {
+        return bitSetSize;
+    }
+
+    public int getK() 
+    {
+        return k;
+    }
+
+    public int count() 
+    {
+        return numberOfAddedElements;
+    }
+
+    public HashMode getHashMode() 
+    {
+        return hashMode;
+    }
+
+    // True for a filter loaded with map(), which cannot take any more elements.
+    public boolean isMapped() 
+    {
+        return mapped != null;
+    }
+
      // Adds an object to the Bloom filter. The output from the object's
     public void add(E element) 
     {
        long hash;
        String valString = element.toString();
+       if (hashMode == HashMode.MURMUR3)
+       {
+           murmurProbe(valString, true);
+           numberOfAddedElements ++;
+           return;
+       }
+       long hashing = 0;
        for (int x = 0; x < k; x++) 
        {
+           long start = metrics.ENABLED ? System.nanoTime() : 0;
            hash = createHash(valString + Integer.toString(x));
+           if (metrics.ENABLED)
+               hashing += System.nanoTime() - start;
            hash = hash % (long)bitSetSize;
-           bitset.set(Math.abs((int)hash), true);
+           setBit(Math.abs((int)hash), true);
        }
+       if (metrics.ENABLED)
+           metrics.BLOOM_HASH.record(hashing);
        numberOfAddedElements ++;
     }
 
@@ -144,18 +291,32 @@ public class bloomfilter12<E> implements Serializable
     {
        long hash;
        String valString = element.toString();
-       for (int x = 0; x < k; x++) {
+       if (hashMode == HashMode.MURMUR3)
+       {
+           return murmurProbe(valString, false);
+       }
+       long hashing = 0;
+       boolean found = true;
+       for (int x = 0; x < k && found; x++) {
+           long start = metrics.ENABLED ? System.nanoTime() : 0;
            hash = createHash(valString + Integer.toString(x));
+           if (metrics.ENABLED)
+               hashing += System.nanoTime() - start;
            hash = hash % (long)bitSetSize;
-           if (!bitset.get(Math.abs((int)hash)))
-               return false;
+           found = getBit(Math.abs((int)hash));
        }
-       return true;
+       if (metrics.ENABLED)
+           metrics.BLOOM_HASH.record(hashing);
+       return found;
     }
 
     // Read a single bit from the Bloom filter.
     public boolean getBit(int bit) 
     {
+        if (mapped != null)
+        {
+            return (mapped.get(bit >>> 3) & (1 << (bit & 7))) != 0;
+        }
         return bitset.get(bit);
     }
 
@@ -163,9 +324,121 @@ public class bloomfilter12<E> implements Serializable
      
     public void setBit(int bit, boolean value) 
     {
+        if (mapped != null)
+        {
+            throw new UnsupportedOperationException("a memory-mapped Bloom filter is read-only");
+        }
         bitset.set(bit, value);
     }
 
+    /*
+      On-disk format, all little-endian:
+        int magic "BLM1", int version, int hash mode (0 = MD5, 1 = MURMUR3), int k,
+        long m (bits), long n (elements added), long expected elements, long dictionary checksum,
+      followed by the m bits as ceil(m / 64) longs, bit i being bit (i % 8) of byte (i / 8), the java.util.BitSet order.
+      The header is 48 bytes so the bit array starts 8-byte aligned.
+    */
+    static final int FILE_MAGIC = 0x314d4c42; // "BLM1"
+    static final int FILE_VERSION = 1;
+    static final int HEADER_SIZE = 48;
+
+    public long getDictionaryChecksum() 
+    {
+        return dictionaryChecksum;
+    }
+
+    // CRC32 of a file's bytes, used to tell whether a saved filter still matches its dictionary.
+    public static long checksum(String file) throws IOException 
+    {
+        CRC32 crc = new CRC32();
+        FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+        try
+        {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        finally
+        {
+            channel.close();
+        }
+        return crc.getValue();
+    }
+
+    // Writes the filter in the format above, recording the checksum of the dictionary it was built from.
+    public void writeTo(String file, long dictionaryChecksum) throws IOException 
+    {
+        int bytes = (int)(((long)bitSetSize + 63) / 64 * 8);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(hashMode == HashMode.MURMUR3 ? 1 : 0).putInt(k);
+        buffer.putLong(bitSetSize).putLong(numberOfAddedElements).putLong(expectedNumberOfFilterElements).putLong(dictionaryChecksum);
+        if (mapped != null)
+            buffer.put(mapped.duplicate());
+        else
+            buffer.put(bitset.toByteArray()); // same bit order, trailing zero bytes left out
+
+        // Write next to the target and move it in place, so a reader never maps a half written file.
+        Path target = Paths.get(file).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try
+        {
+            FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            try
+            {
+                buffer.rewind();
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+            finally
+            {
+                channel.close();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /*
+      Memory-maps a filter written by writeTo(). The bits are read straight from the mapping, so the filter answers
+      contains() as soon as this returns and every process mapping the same file shares one page cache copy.
+      The returned filter is read-only.
+    */
+    public static <E> bloomfilter12<E> map(String file) throws IOException 
+    {
+        FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+        try
+        {
+            if (channel.size() < HEADER_SIZE)
+                throw new IOException(file + ": not a Bloom filter file");
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != FILE_MAGIC)
+                throw new IOException(file + ": not a Bloom filter file");
+            int version = header.getInt();
+            if (version != FILE_VERSION)
+                throw new IOException(file + ": unsupported Bloom filter version " + version);
+            int mode = header.getInt();
+            int k = header.getInt();
+            long m = header.getLong();
+            long n = header.getLong();
+            long expected = header.getLong();
+            long bytes = (m + 63) / 64 * 8;
+            if (mode < 0 || mode > 1 || k < 1 || m < 1 || m > Integer.MAX_VALUE || channel.size() < HEADER_SIZE + bytes)
+                throw new IOException(file + ": corrupt Bloom filter header");
+
+            bloomfilter12<E> filter = new bloomfilter12<E>((double)m / expected, (int)expected, k, mode == 1 ? HashMode.MURMUR3 : HashMode.MD5, false);
+            filter.bitSetSize = (int)m;
+            filter.numberOfAddedElements = (int)n;
+            filter.dictionaryChecksum = header.getLong();
+            filter.mapped = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, bytes);
+            return filter;
+        }
+        finally
+        {
+            channel.close(); // the mapping stays valid after the channel is closed
+        }
+    }
+
     public static void main(String [] args)
     {
         bloomfilter12 <Integer> filter = new bloomfilter12 <Integer> (0.323,98000);
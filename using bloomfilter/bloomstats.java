@@ -0,0 +1,48 @@
+/*
+  A Bloom filter as seen over JMX: the false positive probability its sizing predicts for the words added, next to
+  the one the bits actually set give, which moves away from it when the hashes do not spread the words evenly.
+*/
+public class bloomstats implements bloomstatsMBean {
+
+    private final scalablebloomfilter<?> filter;
+
+    bloomstats(scalablebloomfilter<?> filter)
+    {
+        this.filter = filter;
+    }
+
+    public long getBitSetSize()
+    {
+        return filter.getBitSetSize();
+    }
+
+    public int getSlices()
+    {
+        return filter.slices();
+    }
+
+    public int getCount()
+    {
+        return filter.count();
+    }
+
+    public double getFillRatio()
+    {
+        return filter.getFillRatio();
+    }
+
+    public double getFalsePositiveBound()
+    {
+        return filter.getFalsePositiveBound();
+    }
+
+    public double getFalsePositiveProbability()
+    {
+        return filter.getFalsePositiveProbability();
+    }
+
+    public double getObservedFalsePositiveProbability()
+    {
+        return filter.getObservedFalsePositiveProbability();
+    }
+}
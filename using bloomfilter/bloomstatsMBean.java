@@ -0,0 +1,17 @@
+// What bloomstats publishes over JMX.
+public interface bloomstatsMBean {
+
+    long getBitSetSize();
+
+    int getSlices();
+
+    int getCount();
+
+    double getFillRatio();
+
+    double getFalsePositiveBound();
+
+    double getFalsePositiveProbability();
+
+    double getObservedFalsePositiveProbability();
+}
@@ -0,0 +1,31 @@
+// Lets spellengine check words against a scalablebloomfilter of the dictionary; answers "maybe" words as known.
+class bloomwordset implements wordset {
+
+    private final scalablebloomfilter<String> filter;
+
+    public bloomwordset(scalablebloomfilter<String> filter)
+    {
+        this.filter = filter;
+    }
+
+    public scalablebloomfilter<String> filter()
+    {
+        return filter;
+    }
+
+    public boolean contains(String word)
+    {
+        return filter.contains(word);
+    }
+
+    public boolean containsLowerCase(CharSequence text, int start, int end)
+    {
+        // bloomfilter12 hashes element.toString(), so the lower cased String has to be built here.
+        return filter.contains(text.subSequence(start, end).toString().toLowerCase());
+    }
+
+    public int containsLowerCase(CharSequence text, int start, int prefixEnd, int end)
+    {
+        return (containsLowerCase(text, start, end) ? WHOLE : 0) | (containsLowerCase(text, start, prefixEnd) ? PREFIX : 0);
+    }
+}
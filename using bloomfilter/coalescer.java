@@ -0,0 +1,70 @@
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+  Runs a computation once for all the threads asking for the same key at the same time: the first caller computes,
+  those arriving while it does wait for its result instead of repeating the work. Nothing is kept afterwards, that
+  is for a cache in front of this to do.
+*/
+final class coalescer<K, V> {
+
+    private final ConcurrentHashMap<K, FutureTask<V>> running = new ConcurrentHashMap<K, FutureTask<V>>();
+    private final LongAdder coalesced = new LongAdder();
+
+    V get(K key, Callable<V> computation)
+    {
+        FutureTask<V> task = new FutureTask<V>(computation);
+        FutureTask<V> first = running.putIfAbsent(key, task);
+        if (first == null)
+        {
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                running.remove(key, task);
+            }
+            first = task;
+        }
+        else
+        {
+            coalesced.increment();
+        }
+        boolean interrupted = false;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    return first.get();
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;     // the computing thread is not ours to give up on, wait for it
+                }
+                catch (ExecutionException e)
+                {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException)cause;
+                    if (cause instanceof Error)
+                        throw (Error)cause;
+                    throw new IllegalStateException(cause);
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    // Calls that waited for another thread's computation instead of running their own.
+    long coalesced()
+    {
+        return coalesced.sum();
+    }
+}
@@ -0,0 +1,13 @@
+// What correctionstats publishes over JMX.
+public interface correctionstatsMBean {
+
+    long getKnown();
+
+    long getDistance1();
+
+    long getDistance2();
+
+    long getNoCorrection();
+
+    void reset();
+}
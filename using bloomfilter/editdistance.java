@@ -0,0 +1,91 @@
+import java.util.*;
+
+// Damerau-Levenshtein distance used to verify the candidates handed out by the suggestion indexes.
+class editdistance {
+
+    static final int INFINITE = 1 << 20;
+
+    /*
+      Unrestricted Damerau-Levenshtein distance (Lowrance-Wagner), i.e. the least number of deletions,
+      insertions, replacements and adjacent transpositions needed to turn a into b.
+      With lettersOnly set, insertions and replacements may only introduce the characters 'a'..'z', which is
+      exactly the alphabet used by spellingsuggest.edits(), so a distance of d means "b is reachable by d rounds of edits()".
+    */
+    static int damerau(String a, String b, boolean lettersOnly)
+    {
+        int n = a.length(), m = b.length();
+        int[][] d = new int[n + 2][m + 2];
+        int[] insertCost = new int[m + 1];       // insertCost[j] = cost of inserting b[0..j-1]
+        for (int j = 0; j < m; j++)
+        {
+            insertCost[j + 1] = insertCost[j] + cost(b.charAt(j), lettersOnly);
+        }
+
+        int max = INFINITE;
+        d[0][0] = max;
+        for (int i = 0; i <= n; i++)
+        {
+            d[i + 1][0] = max;
+            d[i + 1][1] = i;
+        }
+        for (int j = 0; j <= m; j++)
+        {
+            d[0][j + 1] = max;
+            d[1][j + 1] = insertCost[j];
+        }
+
+        int[] lastAsciiRow = new int[128];      // last row where each character was seen, plain chars kept out of the map
+        HashMap<Character, Integer> lastRow = new HashMap<Character, Integer>();
+        for (int i = 1; i <= n; i++)
+        {
+            char ca = a.charAt(i - 1);
+            int lastMatchCol = 0;
+            for (int j = 1; j <= m; j++)
+            {
+                char cb = b.charAt(j - 1);
+                int i1;
+                if (cb < 128)
+                {
+                    i1 = lastAsciiRow[cb];
+                }
+                else
+                {
+                    Integer k = lastRow.get(cb);
+                    i1 = k == null ? 0 : k;
+                }
+                int j1 = lastMatchCol;
+                int replace = ca == cb ? 0 : cost(cb, lettersOnly);
+                if (replace == 0)
+                {
+                    lastMatchCol = j;
+                }
+                int best = Math.min(d[i][j] + replace, Math.min(d[i + 1][j] + cost(cb, lettersOnly), d[i][j + 1] + 1));
+                if (i1 > 0 && j1 > 0)
+                {
+                    // transpose, deleting a[i1..i-2] and inserting b[j1..j-2] in between
+                    best = Math.min(best, d[i1][j1] + (i - i1 - 1) + 1 + (insertCost[j - 1] - insertCost[j1]));
+                }
+                d[i + 1][j + 1] = Math.min(best, INFINITE);
+            }
+            if (ca < 128)
+            {
+                lastAsciiRow[ca] = i;
+            }
+            else
+            {
+                lastRow.put(ca, i);
+            }
+        }
+        return d[n + 1][m + 1];
+    }
+
+    static int damerau(String a, String b)
+    {
+        return damerau(a, b, false);
+    }
+
+    private static int cost(char c, boolean lettersOnly)
+    {
+        return !lettersOnly || (c >= 'a' && c <= 'z') ? 1 : INFINITE;
+    }
+}
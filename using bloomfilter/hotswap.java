@@ -0,0 +1,255 @@
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/*
+  Versioned, zero downtime reloads of the dictionary and the frequency database.
+  Readers take the current generation with acquire(), one volatile read and an in-flight count, no lock, and check
+  against it until release(). reload() builds the next generation from the files as they are now on a background
+  thread, while the current one keeps serving, then publishes it with a single reference swap. Checks started before
+  the swap finish on the old generation, those started after it see the new one, and the old one is retired as soon
+  as its last in-flight check releases it. A load that fails, or finds empty files, leaves the current generation in place.
+*/
+final class hotswap {
+
+    // Builds a generation from the files; runs on the reload thread, the first time on the constructing one.
+    interface loader
+    {
+        generation load() throws IOException;
+    }
+
+    // One dictionary and frequency database, never modified once published.
+    static final class generation
+    {
+        private final spellengine engine;
+        private final spellingsuggest suggest;
+        private final wordset dictionary;
+        private final int dictionaryWords;
+        private final AtomicInteger inflight = new AtomicInteger();
+        private final AtomicBoolean retired = new AtomicBoolean();
+        private int version;                // set before publication, read only after it
+        private long loadNanos;
+
+        generation(wordset dictionary, int dictionaryWords, spellingsuggest suggest)
+        {
+            this.dictionary = dictionary;
+            this.dictionaryWords = dictionaryWords;
+            this.suggest = suggest;
+            this.engine = new spellengine(dictionary, suggest);
+        }
+
+        public spellengine engine()
+        {
+            return engine;
+        }
+
+        public wordset dictionary()
+        {
+            return dictionary;
+        }
+
+        public spellingsuggest suggest()
+        {
+            return suggest;
+        }
+
+        public int version()
+        {
+            return version;
+        }
+
+        public int dictionaryWords()
+        {
+            return dictionaryWords;
+        }
+
+        public int corpusWords()
+        {
+            return suggest.size();
+        }
+
+        public long loadMillis()
+        {
+            return TimeUnit.NANOSECONDS.toMillis(loadNanos);
+        }
+
+        public boolean isRetired()
+        {
+            return retired.get();
+        }
+
+        // Once only: drops the cached corrections, which are only valid for this frequency database.
+        private boolean retire()
+        {
+            if (!retired.compareAndSet(false, true))
+                return false;
+            if (suggest.cache() != null)
+                suggest.cache().clear();
+            return true;
+        }
+
+        public String toString()
+        {
+            return "version " + version + ": " + dictionaryWords + " dictionary words, " + corpusWords()
+                 + " corpus words, loaded in " + loadMillis() + " ms";
+        }
+    }
+
+    private final loader loader;
+    private final AtomicReference<generation> current = new AtomicReference<generation>();
+    private final reloadstats stats = new reloadstats();
+    private final ExecutorService reloads = Executors.newSingleThreadExecutor(daemon("dictionary reload"));
+    private final ScheduledExecutorService watcher = Executors.newSingleThreadScheduledExecutor(daemon("dictionary watch"));
+
+    // Loads the first generation on the calling thread.
+    hotswap(loader loader) throws IOException
+    {
+        this.loader = loader;
+        publish(build(1));
+        if (metrics.ENABLED)
+            metrics.register("type=Reload", stats);
+    }
+
+    static ThreadFactory daemon(final String name)
+    {
+        return new ThreadFactory() {
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    private generation build(int version) throws IOException
+    {
+        long start = System.nanoTime();
+        generation next = loader.load();
+        if (next.dictionaryWords() == 0 || next.corpusWords() == 0)
+            throw new IOException("refusing an empty dictionary or frequency database (" + next.dictionaryWords()
+                                + " dictionary words, " + next.corpusWords() + " corpus words)");
+        next.version = version;
+        next.loadNanos = System.nanoTime() - start;
+        return next;
+    }
+
+    private void publish(generation next)
+    {
+        generation old = current.getAndSet(next);
+        stats.published(next);
+        if (old != null && old.inflight.get() == 0 && old.retire())
+            stats.retired();
+    }
+
+    /*
+      The current generation, held until release(): it is not retired while held, even if a reload replaces it.
+      The count is taken before checking the generation is still current, so a reload in between either sees the
+      count or is seen here and the acquire retried on the new generation.
+    */
+    public generation acquire()
+    {
+        while (true)
+        {
+            generation g = current.get();
+            g.inflight.incrementAndGet();
+            if (current.get() == g)
+                return g;
+            release(g);
+        }
+    }
+
+    public void release(generation g)
+    {
+        if (g.inflight.decrementAndGet() == 0 && current.get() != g && g.retire())
+            stats.retired();
+    }
+
+    // The current generation, for a look at its sizes; use acquire() to check with it.
+    public generation current()
+    {
+        return current.get();
+    }
+
+    public reloadstats stats()
+    {
+        return stats;
+    }
+
+    // Builds the next generation in the background; the future gives it once published, or the reason it was not.
+    public Future<generation> reload()
+    {
+        return reloads.submit(new Callable<generation>() {
+            public generation call() throws Exception
+            {
+                try
+                {
+                    // reloads run one at a time on this thread, so versions follow each other
+                    generation next = build(current.get().version() + 1);
+                    publish(next);
+                    System.err.println("Reloaded the dictionaries, " + next);
+                    return next;
+                }
+                catch (Exception e)
+                {
+                    stats.failed();
+                    System.err.println("Keeping the dictionaries of version " + current.get().version() + ": " + e);
+                    throw e;
+                }
+            }
+        });
+    }
+
+    /*
+      Checks the files every periodMillis and reloads once they changed and then stayed the same for a whole period,
+      so a file still being written is not loaded half way.
+    */
+    public void watch(long periodMillis, final String... files)
+    {
+        watcher.scheduleWithFixedDelay(new Runnable() {
+            private long loaded = signature(files);
+            private long seen = loaded;
+
+            public void run()
+            {
+                long now = signature(files);
+                if (now != loaded && now == seen)
+                {
+                    loaded = now;
+                    try
+                    {
+                        reload().get();
+                    }
+                    catch (ExecutionException e)
+                    {
+                        // reported by reload(); tried again once the files change again
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                seen = now;
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Changes whenever one of the files is modified, replaced, created or removed.
+    private static long signature(String[] files)
+    {
+        long signature = 17;
+        for (String name : files)
+        {
+            File file = new File(name);
+            signature = 31 * (31 * signature + file.lastModified()) + file.length();
+        }
+        return signature;
+    }
+
+    // Stops watching and reloading; the current generation keeps serving.
+    public void close()
+    {
+        watcher.shutdownNow();
+        reloads.shutdown();
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+  Latency histogram in the manner of HdrHistogram: buckets linear within each power of two and logarithmic across
+  them, SUB_BUCKETS to a power of two, so any value from 1 ns to hours is kept to within about 3% in a fixed 15 KB.
+  Recording is one atomic increment and never allocates or locks; percentiles are read off the counts.
+*/
+public class latencyhistogram implements latencyhistogramMBean {
+
+    static final int SUB_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final String stage;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    latencyhistogram(String stage)
+    {
+        this.stage = stage;
+    }
+
+    String stage()
+    {
+        return stage;
+    }
+
+    // Values below 2 * SUB_BUCKETS get a bucket each; above that bucket i covers 2^shift values.
+    static int bucket(long value)
+    {
+        if (value < 2 * SUB_BUCKETS)
+            return (int)value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int)(value >>> shift) - SUB_BUCKETS;
+    }
+
+    // The largest value falling in bucket i.
+    static long highest(int i)
+    {
+        if (i < 2 * SUB_BUCKETS)
+            return i;
+        int shift = i / SUB_BUCKETS - 1;
+        return ((long)(i % SUB_BUCKETS + SUB_BUCKETS) << shift) + (1L << shift) - 1;
+    }
+
+    public void record(long nanos)
+    {
+        if (nanos < 0)
+            nanos = 0;
+        counts.incrementAndGet(bucket(nanos));
+        total.add(nanos);
+        for (long m = max.get(); nanos > m && !max.compareAndSet(m, nanos); m = max.get())
+        {
+        }
+    }
+
+    public long getCount()
+    {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            count += counts.get(i);
+        return count;
+    }
+
+    public double getMean()
+    {
+        long count = getCount();
+        return count == 0 ? 0 : (double)total.sum() / count;
+    }
+
+    // The value below which percent of the recorded values fall, to the bucket resolution.
+    public long percentile(double percent)
+    {
+        long count = getCount();
+        if (count == 0)
+            return 0;
+        long rank = Math.max(1, (long)Math.ceil(percent / 100 * count)), seen = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(highest(i), max.get());
+        }
+        return max.get();
+    }
+
+    public long getP50()
+    {
+        return percentile(50);
+    }
+
+    public long getP90()
+    {
+        return percentile(90);
+    }
+
+    public long getP99()
+    {
+        return percentile(99);
+    }
+
+    public long getP999()
+    {
+        return percentile(99.9);
+    }
+
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < BUCKETS; i++)
+            counts.set(i, 0);
+        total.reset();
+        max.set(0);
+    }
+
+    public String toString()
+    {
+        return stage + ": " + getCount() + " calls, mean " + Math.round(getMean()) + " ns, p50 " + getP50() + " ns, p99 "
+             + getP99() + " ns, max " + getMax() + " ns";
+    }
+}
@@ -0,0 +1,52 @@
+// A misspelt word found by spellengine.check(): where its token is in the checked text and the word to correct.
+final class misspelling {
+
+    private final int offset;
+    private final int length;
+    private final String token;
+    private final String word;
+    private final String previous;
+
+    misspelling(int offset, int length, String token, String word, String previous)
+    {
+        this.offset = offset;
+        this.length = length;
+        this.token = token;
+        this.word = word;
+        this.previous = previous;
+    }
+
+    // Position of the token in the checked text.
+    public int offset()
+    {
+        return offset;
+    }
+
+    public int length()
+    {
+        return length;
+    }
+
+    // The token as it appears in the text, punctuation included.
+    public String token()
+    {
+        return token;
+    }
+
+    // The lower cased word without punctuation, the form to ask suggestions for.
+    public String word()
+    {
+        return word;
+    }
+
+    // The lower cased word before it in the checked text, null if there is none; the context to correct it in.
+    public String previous()
+    {
+        return previous;
+    }
+
+    public String toString()
+    {
+        return token + "@" + offset;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+  MurmurHash3_x64_128 of a string's chars: its first 64 bits for filters that need one hash value, and the rounds it
+  is made of for bloomfilter12, which needs all 128 bits and works them out itself, a Java method being unable to
+  return two longs without allocating.
+*/
+final class murmur3 {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private murmur3()
+    {
+    }
+
+    static long fmix64(long k)
+    {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    // First 64 bits (h1) of MurmurHash3_x64_128, seed 0, of the UTF-16LE bytes of val, read straight from its chars.
+    static long hash64(CharSequence val)
+    {
+        int length = val.length();
+        long h1 = 0, h2 = 0;
+        int i = 0;
+        for (; i + 8 <= length; i += 8) // 16 bytes = 8 chars per block
+        {
+            h1 ^= mixK1(block(val, i));
+            h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(block(val, i + 4));
+            h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495ab5;
+        }
+        int tail = length - i;      // up to 7 trailing chars
+        if (tail > 4)
+            h2 ^= mixK2(chars(val, i + 4, tail - 4));
+        if (tail > 0)
+            h1 ^= mixK1(chars(val, i, Math.min(tail, 4)));
+        h1 ^= 2L * length;
+        h2 ^= 2L * length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        return h1 + h2;
+    }
+
+    // 4 chars of val from i, little endian.
+    static long block(CharSequence val, int i)
+    {
+        return val.charAt(i) | (long)val.charAt(i + 1) << 16 | (long)val.charAt(i + 2) << 32 | (long)val.charAt(i + 3) << 48;
+    }
+
+    // count (1 to 4) chars of val from i, little endian.
+    static long chars(CharSequence val, int i, int count)
+    {
+        long k = 0;
+        for (int j = 0; j < count; j++)
+            k |= (long)val.charAt(i + j) << (16 * j);
+        return k;
+    }
+
+    static long mixK1(long k1)
+    {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    static long mixK2(long k2)
+    {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+}
@@ -0,0 +1,280 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+  Suggestion backend that scans the corpus words instead of generating edits, for long words: edits() tries about
+  54 n candidates at distance 1 and (54 n)^2 at distance 2, while the words within distance 2 of a word of length n
+  all have a length in [n - 2, n + 2]. The words are kept bucketed by length, so a query scans only those five
+  buckets, and each word carries the set of letters it has: one edit changes that set by at most two letters, so a
+  word whose set differs from the query's by more than 2 * MAX_DISTANCE is passed over on a popcount.
+  The others get their distance from the bit-parallel algorithm of Myers, with Hyyro's transposition term: the
+  query (up to 64 characters) is one column of the dynamic programming matrix held in two longs, updated by a
+  dozen word operations for each character of the scanned word. That is the restricted (optimal string alignment)
+  distance, which only ever overestimates the distance editdistance.damerau() checks, and then at most by one for
+  distance 2: words at 3, and words with characters edits() cannot put in, are checked with editdistance.
+  Ranges of more than SPLIT words are split across cores on the fork-join pool. Candidates are ranked exactly like
+  symmetricdelete ranks them.
+*/
+class myersscan implements suggestengine {
+
+    static final int MAX_DISTANCE = 2;
+    static final int MAX_LENGTH = 64;       // longest query one long holds a column of; longer ones use editdistance
+    static final int SPLIT = 4096;          // words a fork-join task scans without splitting further
+
+    private static final int OTHER = 1 << 26;   // letter set bit of any character but 'a'..'z'
+
+    private final frequencytable DBWords;
+    private final int[] entries;            // DBWords entries by length, then entry
+    private final int[] letters;            // letter set of each of them
+    private final byte[] text;              // their characters, back to back
+    private final int[] start;              // word i is text[start[i], start[i + 1])
+    private final int[] bucket;             // the words of length L are [bucket[L], bucket[L + 1])
+
+    // The words within MAX_DISTANCE of a query and their distances, in scan order.
+    private static final class hits
+    {
+        int[] entries = new int[8];
+        int[] distances = new int[8];
+        int size;
+
+        void add(int entry, int distance)
+        {
+            if (size == entries.length)
+            {
+                entries = Arrays.copyOf(entries, 2 * size);
+                distances = Arrays.copyOf(distances, 2 * size);
+            }
+            entries[size] = entry;
+            distances[size++] = distance;
+        }
+
+        hits addAll(hits other)
+        {
+            for (int i = 0; i < other.size; i++)
+                add(other.entries[i], other.distances[i]);
+            return this;
+        }
+    }
+
+    // A word being corrected, with the bit masks of where each character occurs in it.
+    private static final class query
+    {
+        final String word;
+        final int length;
+        final int letters;
+        final long[] peq;           // peq[c]: bit i set if word.charAt(i) == c, for c < 256; null past MAX_LENGTH
+
+        query(String word)
+        {
+            this.word = word;
+            length = word.length();
+            letters = letterSet(word);
+            peq = length > 0 && length <= MAX_LENGTH ? new long[256] : null;
+            for (int i = 0; peq != null && i < length; i++)
+            {
+                char c = word.charAt(i);
+                if (c < 256)
+                    peq[c] |= 1L << i;  // corpus words are single byte characters, anything else matches none
+            }
+        }
+    }
+
+    public myersscan(frequencytable words)
+    {
+        DBWords = words;
+        int n = words.size(), longest = 0;
+        String[] spelt = new String[n];
+        for (int entry = 0; entry < n; entry++)
+        {
+            spelt[entry] = words.word(entry);
+            longest = Math.max(longest, spelt[entry].length());
+        }
+        // counting sort by length
+        bucket = new int[longest + 2];
+        int total = 0;
+        for (String word : spelt)
+        {
+            bucket[word.length() + 1]++;
+            total += word.length();
+        }
+        for (int length = 1; length < bucket.length; length++)
+            bucket[length] += bucket[length - 1];
+        int[] next = Arrays.copyOf(bucket, bucket.length);
+        entries = new int[n];
+        for (int entry = 0; entry < n; entry++)
+            entries[next[spelt[entry].length()]++] = entry;
+
+        letters = new int[n];
+        text = new byte[total];
+        start = new int[n + 1];
+        int offset = 0;
+        for (int i = 0; i < n; i++)
+        {
+            String word = spelt[entries[i]];
+            start[i] = offset;
+            for (int j = 0; j < word.length(); j++)
+                text[offset++] = (byte)word.charAt(j);
+            letters[i] = letterSet(word);
+        }
+        start[n] = offset;
+    }
+
+    private static int letterSet(String word)
+    {
+        int set = 0;
+        for (int i = 0; i < word.length(); i++)
+        {
+            char c = word.charAt(i);
+            set |= c >= 'a' && c <= 'z' ? 1 << (c - 'a') : OTHER;
+        }
+        return set;
+    }
+
+    public String correct(String word)
+    {
+        if (DBWords.frequencyOf(word) != frequencytable.ABSENT)
+        {
+            return word;    // this is a perfectly safe word.
+        }
+        // the most frequent word at distance 1, else at distance 2, as spellingsuggest.correct()
+        topk best = new topk(1);
+        candidates(word, best);
+        return best.size() == 0 ? spellingsuggest.NO_CORRECTION : best.words().get(0);
+    }
+
+    public List<String> suggest(String word, int k)
+    {
+        if (DBWords.frequencyOf(word) != frequencytable.ABSENT)
+        {
+            return Collections.singletonList(word);
+        }
+        topk best = new topk(k);
+        candidates(word, best);
+        return best.words();
+    }
+
+    // The DBWords entries exactly distance away from word, for spellingsuggest to rerank by context.
+    public int[] at(String word, int distance)
+    {
+        hits found = scan(word);
+        int[] at = new int[found.size];
+        int n = 0;
+        for (int i = 0; i < found.size; i++)
+        {
+            if (found.distances[i] == distance)
+                at[n++] = found.entries[i];
+        }
+        return Arrays.copyOf(at, n);
+    }
+
+    private void candidates(String word, topk best)
+    {
+        hits found = scan(word);
+        for (int i = 0; i < found.size; i++)
+        {
+            int entry = found.entries[i];
+            best.offer(new candidate(DBWords.word(entry), found.distances[i], DBWords.count(entry), word));
+        }
+    }
+
+    // Every word within MAX_DISTANCE of word, from the buckets of the lengths it can have.
+    private hits scan(String word)
+    {
+        query q = new query(word);
+        int shortest = Math.max(0, q.length - MAX_DISTANCE), longest = Math.min(bucket.length - 2, q.length + MAX_DISTANCE);
+        if (shortest > longest)
+            return new hits();
+        int from = bucket[shortest], to = bucket[longest + 1];
+        if (to - from <= SPLIT)
+            return scan(q, from, to);
+        return ForkJoinPool.commonPool().invoke(new task(this, q, from, to));
+    }
+
+    // Scans [from, to) by halves, the left half forked, so the hits come out in scan order whoever ran which half.
+    private static final class task extends RecursiveTask<hits>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final myersscan words;
+        private final query q;
+        private final int from, to;
+
+        task(myersscan words, query q, int from, int to)
+        {
+            this.words = words;
+            this.q = q;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected hits compute()
+        {
+            if (to - from <= SPLIT)
+                return words.scan(q, from, to);
+            int middle = (from + to) >>> 1;
+            task left = new task(words, q, from, middle);
+            left.fork();
+            hits right = new task(words, q, middle, to).compute();
+            return left.join().addAll(right);
+        }
+    }
+
+    private hits scan(query q, int from, int to)
+    {
+        hits found = new hits();
+        for (int i = from; i < to; i++)
+        {
+            if (Integer.bitCount(letters[i] ^ q.letters) > 2 * MAX_DISTANCE)
+                continue;
+            int distance;
+            if (q.peq == null)
+            {
+                distance = editdistance.damerau(q.word, DBWords.word(entries[i]), true);
+            }
+            else
+            {
+                distance = restricted(q, start[i], start[i + 1], MAX_DISTANCE + 1);
+                // a transposition with an edit between the swapped letters costs one more here, and edits() only
+                // puts in 'a'..'z'; editdistance has the last word on both
+                if (distance == MAX_DISTANCE + 1 || (distance <= MAX_DISTANCE && (letters[i] & OTHER) != 0))
+                    distance = editdistance.damerau(q.word, DBWords.word(entries[i]), true);
+            }
+            if (distance <= MAX_DISTANCE)
+                found.add(entries[i], distance);
+        }
+        return found;
+    }
+
+    /*
+      Optimal string alignment distance between the query and text[from, to), or some value above limit once it is
+      sure to exceed it. Bit i of vp / vn is set where row i + 1 of the current column is one more / one less than
+      row i; d0 marks the rows whose value equals the diagonal one. The score follows the last row, which starts at
+      the query length and moves by the horizontal difference in its row with every column.
+    */
+    private int restricted(query q, int from, int to, int limit)
+    {
+        long[] peq = q.peq;
+        long vp = -1L, vn = 0, d0 = 0, previous = 0;
+        long last = 1L << (q.length - 1);
+        int score = q.length;
+        for (int j = from; j < to; j++)
+        {
+            long pm = peq[text[j] & 0xFF];
+            d0 = ((~d0 & pm) << 1 & previous) | (((pm & vp) + vp) ^ vp) | pm | vn;
+            long hp = vn | ~(d0 | vp);
+            long hn = vp & d0;
+            if ((hp & last) != 0)
+                score++;
+            else if ((hn & last) != 0)
+                score--;
+            if (score - (to - j - 1) > limit)
+                return score;   // even matching every character left would not bring it down to limit
+            hp = hp << 1 | 1;   // row 0 is the distance from the empty query, one more every column
+            hn <<= 1;
+            vp = hn | ~(d0 | hp);
+            vn = hp & d0;
+            previous = pm;
+        }
+        return score;
+    }
+}
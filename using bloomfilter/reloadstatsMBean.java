@@ -0,0 +1,17 @@
+// What reloadstats publishes over JMX.
+public interface reloadstatsMBean {
+
+    int getVersion();
+
+    long getReloads();
+
+    long getFailedReloads();
+
+    long getRetired();
+
+    long getLastReloadMillis();
+
+    int getDictionaryWords();
+
+    int getCorpusWords();
+}
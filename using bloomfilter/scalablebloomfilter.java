@@ -0,0 +1,219 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+
+/*
+  Scalable Bloom filter (Almeida, Baquero, Preguica and Hutchison): a chain of bloomfilter12 slices that grows instead
+  of overfilling. Words go into the newest slice until it holds its capacity, then a new slice is opened, GROWTH times
+  larger and with its false positive rate cut by TIGHTENING. Slice i is sized for errorRate * (1 - r) * r^i, a
+  geometric series summing to errorRate, so the chain as a whole stays below errorRate however many words are
+  appended, while the number of slices, and with it the cost of a lookup, only grows with the log of the word count.
+*/
+public class scalablebloomfilter<E> {
+
+    static final double TIGHTENING = 0.5;
+    static final int GROWTH = 2;
+    static final int MANIFEST_MAGIC = 0x534d4c42; // "BLMS"
+
+    private final double errorRate;
+    private final int initialCapacity;
+    private final bloomfilter12.HashMode hashMode;
+    private final ArrayList<bloomfilter12<E>> slices = new ArrayList<bloomfilter12<E>>();
+
+    // A chain bounded by errorRate whose first slice holds initialCapacity elements.
+    public scalablebloomfilter(double errorRate, int initialCapacity, bloomfilter12.HashMode hashMode)
+    {
+        if (errorRate <= 0 || errorRate >= 1)
+            throw new IllegalArgumentException("error rate must be between 0 and 1: " + errorRate);
+        this.errorRate = errorRate;
+        this.initialCapacity = Math.max(1, initialCapacity);
+        this.hashMode = hashMode;
+    }
+
+    private double sliceErrorRate(int i)
+    {
+        return errorRate * (1 - TIGHTENING) * Math.pow(TIGHTENING, i);
+    }
+
+    private int sliceCapacity(int i)
+    {
+        return (int)Math.min(Integer.MAX_VALUE / 64, (long)(initialCapacity * Math.pow(GROWTH, i)));
+    }
+
+    // Adds element unless the filter already claims to hold it, which would only fill the newest slice for nothing.
+    public void add(E element)
+    {
+        if (contains(element))
+            return;
+        bloomfilter12<E> newest = slices.isEmpty() ? null : slices.get(slices.size() - 1);
+        if (newest == null || newest.isMapped() || newest.count() >= sliceCapacity(slices.size() - 1))
+        {
+            // the newest slice is full, or mapped from disk and so read-only
+            newest = new bloomfilter12<E>(sliceErrorRate(slices.size()), sliceCapacity(slices.size()), hashMode);
+            slices.add(newest);
+        }
+        newest.add(element);
+    }
+
+    public boolean contains(E element)
+    {
+        for (int i = slices.size() - 1; i >= 0; i--)
+        {
+            if (slices.get(i).contains(element))
+                return true;
+        }
+        return false;
+    }
+
+    // The bound the chain is built to stay under.
+    public double getFalsePositiveBound()
+    {
+        return errorRate;
+    }
+
+    // The false positive probability the slices predict for the elements they hold: a miss passes if any slice lets it.
+    public double getFalsePositiveProbability()
+    {
+        double pass = 1;
+        for (bloomfilter12<E> slice : slices)
+            pass *= 1 - slice.getFalsePositiveProbability();
+        return 1 - pass;
+    }
+
+    // The same from the bits actually set in every slice.
+    public double getObservedFalsePositiveProbability()
+    {
+        double pass = 1;
+        for (bloomfilter12<E> slice : slices)
+            pass *= 1 - slice.getObservedFalsePositiveProbability();
+        return 1 - pass;
+    }
+
+    // The fraction of all the bits of the chain that are set.
+    public double getFillRatio()
+    {
+        double set = 0;
+        for (bloomfilter12<E> slice : slices)
+            set += slice.getFillRatio() * slice.getBitSetSize();
+        long bits = getBitSetSize();
+        return bits == 0 ? 0 : set / bits;
+    }
+
+    public long getBitSetSize()
+    {
+        long bits = 0;
+        for (bloomfilter12<E> slice : slices)
+            bits += slice.getBitSetSize();
+        return bits;
+    }
+
+    public int count()
+    {
+        int count = 0;
+        for (bloomfilter12<E> slice : slices)
+            count += slice.count();
+        return count;
+    }
+
+    public int slices()
+    {
+        return slices.size();
+    }
+
+    // The file slice i is kept in: file itself for the first, file.1, file.2 ... for the others.
+    static String sliceFile(String file, int i)
+    {
+        return i == 0 ? file : file + "." + i;
+    }
+
+    /*
+      The file listing the chain: int magic, int number of slices, long dictionary checksum, then the element count
+      of every slice as a long, little endian. writeTo() removes it before touching a slice and writes it after the
+      last one, so a chain that was only partly written, or mixes slices of two runs, has none that matches.
+    */
+    static String manifestFile(String file)
+    {
+        return file + ".slices";
+    }
+
+    // Saves every slice with bloomfilter12.writeTo(), stamped with the checksum of the word list, then the manifest.
+    public void writeTo(String file, long dictionaryChecksum) throws IOException
+    {
+        Path manifest = Paths.get(manifestFile(file)).toAbsolutePath();
+        Files.deleteIfExists(manifest);
+        ByteBuffer buffer = ByteBuffer.allocate(16 + 8 * slices.size()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MANIFEST_MAGIC).putInt(slices.size()).putLong(dictionaryChecksum);
+        for (int i = 0; i < slices.size(); i++)
+        {
+            slices.get(i).writeTo(sliceFile(file, i), dictionaryChecksum);
+            buffer.putLong(slices.get(i).count());
+        }
+
+        // written next to the target and moved in place like the slices
+        Path temp = manifest.resolveSibling(manifest.getFileName() + ".tmp");
+        try
+        {
+            FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            try
+            {
+                buffer.flip();
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+            finally
+            {
+                channel.close();
+            }
+            Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /*
+      Maps the chain saved by writeTo() for the word list with the given checksum, or returns null if there is none,
+      it was built from another list, or any slice the manifest lists is missing or does not match it: a chain short
+      of a slice would answer false negatives. The mapped slices are read-only; added elements go to a new slice in
+      memory.
+    */
+    public static <E> scalablebloomfilter<E> map(String file, long dictionaryChecksum, double errorRate, int initialCapacity) throws IOException
+    {
+        File manifestFile = new File(manifestFile(file));
+        if (!manifestFile.exists())
+            return null;
+        ByteBuffer manifest = ByteBuffer.wrap(Files.readAllBytes(manifestFile.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        if (manifest.remaining() < 16 || manifest.getInt() != MANIFEST_MAGIC)
+            throw new IOException(manifestFile + ": not a Bloom filter chain manifest");
+        int count = manifest.getInt();
+        if (count < 0 || manifest.remaining() != 8L + 8L * count)
+            throw new IOException(manifestFile + ": corrupt Bloom filter chain manifest");
+        if (manifest.getLong() != dictionaryChecksum || count == 0)
+            return null;
+
+        scalablebloomfilter<E> filter = null;
+        for (int i = 0; i < count; i++)
+        {
+            if (!new File(sliceFile(file, i)).exists())
+                return null;
+            bloomfilter12<E> slice = bloomfilter12.map(sliceFile(file, i));
+            if (slice.getDictionaryChecksum() != dictionaryChecksum || slice.count() != manifest.getLong())
+                return null;
+            if (filter == null)
+                filter = new scalablebloomfilter<E>(errorRate, initialCapacity, slice.getHashMode());
+            filter.slices.add(slice);
+        }
+        return filter;
+    }
+
+    public String toString()
+    {
+        return "scalable Bloom filter: " + count() + " elements in " + slices() + " slices of " + getBitSetSize()
+             + " bits, false positive probability " + getFalsePositiveProbability() + " predicted, "
+             + getObservedFalsePositiveProbability() + " observed, bound " + errorRate;
+    }
+}
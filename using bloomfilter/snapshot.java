@@ -0,0 +1,245 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.util.*;
+
+/*
+  Compiled binary snapshot of a word list or of the word counts of a corpus, so neither has to be re-parsed
+  (split, regex, toLowerCase) on every start.
+
+  Format, little-endian:
+    int magic "SNP1", int version, int kind (DICTIONARY or CORPUS), int number of words,
+    long length and long last-modified time of the text file it was compiled from,
+  then per word, in sorted order: unsigned short byte length, the UTF-8 bytes, int count,
+  and for a corpus its bigram model over those words, numbered in that order: int number of bigrams, the bigrams as
+  longs (previous << 32 | next), then their quantized costs as bytes (see bigrammodel).
+
+  Compile with  java snapshot dictionary dictionary.txt   or   java snapshot corpus wordprobabilityDatabase.txt
+  which writes dictionary.txt.snap / wordprobabilityDatabase.txt.snap next to the text file. The loaders use a
+  snapshot only while the text file still has the recorded length and modification time, else they parse the text;
+  a snapshot of another version (version 1 had no bigrams) is ignored the same way, compile it again.
+*/
+final class snapshot {
+
+    static final int FILE_MAGIC = 0x31504e53; // "SNP1"
+    static final int FILE_VERSION = 2;
+    static final int HEADER_SIZE = 32;
+
+    static final int DICTIONARY = 0;   // whitespace separated words, case kept, as read by spellchecker
+    static final int CORPUS = 1;       // lower cased \w+ tokens, as counted by spellingsuggest
+
+    static final String SUFFIX = ".snap";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final String[] words;
+    private final int[] counts;
+    private final bigrammodel bigrams;
+
+    private snapshot(String[] words, int[] counts, bigrammodel bigrams)
+    {
+        this.words = words;
+        this.counts = counts;
+        this.bigrams = bigrams;
+    }
+
+    // The words, sorted.
+    String[] words()
+    {
+        return words;
+    }
+
+    // counts()[i] is the number of occurrences of words()[i] in the source file.
+    int[] counts()
+    {
+        return counts;
+    }
+
+    int size()
+    {
+        return words.length;
+    }
+
+    // The bigram model of a corpus, over new frequencytable(words(), counts(), size()); null for a dictionary.
+    bigrammodel bigrams()
+    {
+        return bigrams;
+    }
+
+    // Writes the snapshot of source (compiled into counts) to source + SUFFIX.
+    static void write(String source, int kind, Map<String, Integer> counts) throws IOException
+    {
+        String[] sorted = counts.keySet().toArray(new String[counts.size()]);
+        Arrays.sort(sorted);
+        int[] values = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++)
+            values[i] = counts.get(sorted[i]);
+        write(source, kind, sorted, values, null);
+    }
+
+    // The same from the sorted words and their counts, with the bigrams of a corpus over the words in that order.
+    static void write(String source, int kind, String[] sorted, int[] counts, bigrammodel bigrams) throws IOException
+    {
+        if ((kind == CORPUS) != (bigrams != null))
+            throw new IllegalArgumentException("a corpus snapshot, and only a corpus snapshot, has bigrams");
+        File text = new File(source);
+        byte[][] encoded = new byte[sorted.length][];
+        long total = HEADER_SIZE;
+        for (int i = 0; i < sorted.length; i++)
+        {
+            encoded[i] = sorted[i].getBytes(UTF8);
+            if (encoded[i].length > 0xffff)
+                throw new IOException("word too long for a snapshot: " + encoded[i].length + " bytes");
+            total += 2 + encoded[i].length + 4;
+        }
+        if (bigrams != null)
+            total += 4 + 9L * bigrams.size();
+        if (total > Integer.MAX_VALUE)
+            throw new IOException("too many words for a snapshot: " + total + " bytes");
+
+        ByteBuffer buffer = ByteBuffer.allocate((int)total).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(kind).putInt(sorted.length);
+        buffer.putLong(text.length()).putLong(text.lastModified());
+        for (int i = 0; i < sorted.length; i++)
+        {
+            buffer.putShort((short)encoded[i].length).put(encoded[i]).putInt(counts[i]);
+        }
+        if (bigrams != null)
+        {
+            buffer.putInt(bigrams.size());
+            for (long pair : bigrams.pairs())
+                buffer.putLong(pair);
+            buffer.put(bigrams.costs());
+        }
+        buffer.flip();
+
+        // Write next to the target and move it in place, so a loader never maps a half written file.
+        Path target = Paths.get(source + SUFFIX).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try
+        {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+        finally
+        {
+            channel.close();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /*
+      Memory-maps source + SUFFIX and decodes it, or returns null when there is no snapshot of that kind or the
+      text file changed since it was compiled. Each word is decoded once, straight from the mapping.
+    */
+    static snapshot load(String source, int kind) throws IOException
+    {
+        File text = new File(source);
+        File file = new File(source + SUFFIX);
+        if (!file.exists())
+            return null;
+
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try
+        {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+                return null;
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            if (in.getInt() != FILE_MAGIC || in.getInt() != FILE_VERSION || in.getInt() != kind)
+                return null;
+            int size = in.getInt();
+            if (in.getLong() != text.length() || in.getLong() != text.lastModified())
+                return null;           // stale, fall back to the text file
+
+            String[] words = new String[size];
+            int[] counts = new int[size];
+            byte[] bytes = new byte[256];
+            for (int i = 0; i < size; i++)
+            {
+                int length = in.getShort() & 0xffff;
+                if (length > bytes.length)
+                    bytes = new byte[Math.max(length, bytes.length * 2)];
+                in.get(bytes, 0, length);
+                words[i] = new String(bytes, 0, length, UTF8);
+                counts[i] = in.getInt();
+            }
+            bigrammodel bigrams = null;
+            if (kind == CORPUS)
+            {
+                int n = in.getInt();
+                if (n < 0)
+                    throw new IOException(file + ": corrupt snapshot");
+                long[] pairs = new long[n];
+                in.asLongBuffer().get(pairs);
+                in.position(in.position() + 8 * n);
+                byte[] costs = new byte[n];
+                in.get(costs);
+                long tokens = 0;            // every token is a corpus word
+                for (int count : counts)
+                    tokens += count;
+                bigrams = new bigrammodel(pairs, costs, tokens);
+            }
+            return new snapshot(words, counts, bigrams);
+        }
+        catch (java.nio.BufferUnderflowException e)
+        {
+            throw new IOException(file + ": truncated snapshot");
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    // Occurrences of each whitespace separated word of a word list such as dictionary.txt.
+    static HashMap<String, Integer> countDictionary(String file) throws IOException
+    {
+        HashMap<String, Integer> counts = new HashMap<String, Integer>();
+        BufferedReader dictReader = new BufferedReader(new FileReader(file));
+        for (String line = dictReader.readLine(); line != null; line = dictReader.readLine())
+        {
+            for (String word : line.split("\\s"))
+            {
+                Integer count = counts.get(word);
+                counts.put(word, count == null ? 1 : count + 1);
+            }
+        }
+        dictReader.close();
+        return counts;
+    }
+
+    public static void main(String [] args) throws IOException
+    {
+        if (args.length != 2 || !(args[0].equals("dictionary") || args[0].equals("corpus")))
+        {
+            System.out.println("usage: java snapshot dictionary|corpus <text file>");
+            return;
+        }
+        long start = System.nanoTime();
+        String what;
+        if (args[0].equals("corpus"))
+        {
+            parallelcounter counter = new parallelcounter(args[1], true);
+            Map<String, Integer> counted = counter.count();
+            String[] sorted = counted.keySet().toArray(new String[counted.size()]);
+            Arrays.sort(sorted);
+            int[] counts = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++)
+                counts[i] = counted.get(sorted[i]);
+            bigrammodel bigrams = counter.bigrams(new frequencytable(sorted, counts, sorted.length));
+            write(args[1], CORPUS, sorted, counts, bigrams);
+            what = sorted.length + " words and " + bigrams.size() + " bigrams";
+        }
+        else
+        {
+            Map<String, Integer> counts = countDictionary(args[1]);
+            write(args[1], DICTIONARY, counts);
+            what = counts.size() + " words";
+        }
+        System.out.println("Wrote " + what + " to " + args[1] + SUFFIX + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+}
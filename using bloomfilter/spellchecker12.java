@@ -3,8 +3,13 @@ import java.util.*;
 
 public class spellchecker12 {
     
-    bloomfilter12 <String> dictionary;   // To store all the words of the dictionary
-    boolean suggestWord ;           // To indicate whether the word is spelled correctly or not.
+    scalablebloomfilter <String> dictionary;   // To store all the words of the dictionary, growing past CAPACITY if need be
+    boolean suggestWord ;           // To indicate whether the word is spelled correctly or not, set by checkWord.
+    hotswap engines;                // Checks the input lines
+    spellengine lookup;             // checkWord's engine: dictionary only, it never asks for suggestions
+    
+    static final double FALSE_POSITIVE = 0.24;     // bound on the false positive rate of the whole filter
+    static final int CAPACITY = 99000;              // words the first slice is sized for
     
     public static void main(String [] args) 
     {
@@ -16,56 +21,64 @@ public class spellchecker12 {
         System.out.println("******Welcome to the spell checker using Bloom Filter(false positive = 0.24 )");
         System.out.println("The spell checker would check every line from the input file and then give suggestions if needed after each line. \n\n");
 
-        dictionary = new bloomfilter12<String>(0.24,99000);      // Assigning a false positive probability of 0.24
-        
         try 
         {
             
-            //Read and store the words of the dictionary 
-            BufferedReader dictReader = new BufferedReader(new FileReader("dictionary.txt"));
-            
-            while (dictReader.ready()) 
-            {
-                String dictInput = dictReader.readLine() ;
-                String [] dict = dictInput.split("\\s");
-                
-                for(int i = 0; i < dict.length;i++) 
+            // Load the dictionary filter and initialise a spelling suggest object over the frequency database; both
+            // are loaded again in the background and swapped in whenever their files change.
+            engines = new hotswap(new hotswap.loader() {
+                public hotswap.generation load() throws IOException
                 {
-                    // key and value are identical
-                    dictionary.add(dict[i]);
+                    scalablebloomfilter<String> filter = loadDictionary();
+                    if (metrics.ENABLED)
+                        metrics.register("type=BloomFilter,name=dictionary", new bloomstats(filter));
+                    return new hotswap.generation(new bloomwordset(filter), filter.count(), new spellingsuggest("wordprobabilityDatabase.txt"));
                 }
-            }
-            dictReader.close();
+            });
+            // checkWord stays on the filter loaded at start
+            dictionary = ((bloomwordset)engines.current().dictionary()).filter();
+            lookup = new spellengine(engines.current().dictionary(), null);
             
            String file = "inputtext.txt";
            // Read and check the input from the text file 
             BufferedReader inputFile = new BufferedReader(new FileReader(file));
             System.out.println("Reading from "+file);
-            
-            // Initialising a spelling suggest object
-            spellingsuggest suggest = new spellingsuggest("wordprobabilityDatabase.txt");
          
-            // Reads input lines one by one
+            // Reads input lines one by one, each checked and corrected against one generation of the dictionaries
             while ( inputFile.ready() ) 
             {
                 String s = inputFile.readLine() ;
                 System.out.println (s);
-                String[] result = s.split("\\s");
                 
-                 for (int x=0; x<result.length; x++)
+                hotswap.generation g = engines.acquire();
+                try
                 {
-                    suggestWord = true;
-                    String outputWord = checkWord(result[x]);
-                    
-                    if(suggestWord)
+                    spellengine engine = g.engine();
+                    for (misspelling m : engine.check(s))
                     {
-                        System.out.println("Suggestions for "+outputWord+" are:  "+suggest.correct(outputWord)+"\n");
+                        System.out.println("Suggestions for "+m.word()+" are:  "+(spellingsuggest.CONTEXT ? engine.correct(m.word(), m.previous()) : engine.correct(m.word()))+"\n");
                     }
                 }
+                finally
+                {
+                    engines.release(g);
+                }
                 
             }
             
             inputFile.close();
+            engines.close();
+            spellingsuggest suggest = engines.current().suggest();
+            if (metrics.ENABLED)
+            {
+                if (suggest.cache() != null)
+                    System.err.println(suggest.cache());
+                System.err.println(metrics.report());
+                System.err.println(engines.stats());
+                if (suggest.prefilter() != null)
+                    System.err.println(suggest.prefilter());
+                System.err.println(((bloomwordset)engines.current().dictionary()).filter());
+            }
         }
         catch (IOException e) 
         {
@@ -75,73 +88,75 @@ public class spellchecker12 {
         }
     }
     
-    public String checkWord(String wordToCheck) 
+    // Maps the filter saved by an earlier run if it was built from this very dictionary, else builds and saves it.
+    static scalablebloomfilter<String> loadDictionary() throws IOException
     {
-        String unpunctWord;
-        String word = wordToCheck.toLowerCase();
-        
-        // if word is found in dictionary then it is spelt correctly, so return as it is.
-        //note: inflections like "es","ing" provided in the dictionary itself.
-        if ( dictionary.contains(word) )
+        scalablebloomfilter<String> dictionary = null;
+        long checksum = bloomfilter12.checksum("dictionary.txt");
+        if (new File("dictionary.bloom").exists())
         {
-            suggestWord = false;            // no need to ask for suggestion for a correct word.
-            return wordToCheck;
+            try
+            {
+                // null when stale, the dictionary changed since
+                dictionary = scalablebloomfilter.map("dictionary.bloom", checksum, FALSE_POSITIVE, CAPACITY);
+            }
+            catch (IOException e)
+            {
+                System.out.println("Ignoring unreadable dictionary.bloom: " + e.getMessage());
+                dictionary = null;
+            }
         }
+        if (dictionary != null)
+            return dictionary;
         
-        // Removing punctuations at end of word and giving it a shot ("." or "." or "?!")
-        int length = word.length();
+        dictionary = new scalablebloomfilter<String>(FALSE_POSITIVE, CAPACITY, bloomfilter12.HashMode.MURMUR3);
         
- 
-         //Checking for the beginning of quotes(example: "she )
-        if (length > 1 && word.substring(0,1).equals("\"")) 
+        //Read and store the words of the dictionary, from its compiled snapshot if there is a fresh one
+        snapshot compiled = snapshot.load("dictionary.txt", snapshot.DICTIONARY);
+        if (compiled != null)
         {
-            unpunctWord = word.substring(1, length);
-            
-            if ( dictionary.contains(unpunctWord) )
-            {
-                suggestWord = false;            // no need to ask for suggestion for a correct word.
-                return wordToCheck ;
-            }
-            else // not found
-                return unpunctWord;                  // removing the punctuations and returning
+            for (String word : compiled.words())
+                dictionary.add(word);
         }
- 
-        // Checking if "." or "," at the end is the problem(example: book. when book is present in the dictionary).
-        if( word.substring(length - 1).equals(".")  || word.substring(length - 1).equals(",") ||  word.substring(length - 1).equals("!")
-        ||  word.substring(length - 1).equals(";") || word.substring(length - 1).equals(":"))
+        else
         {
-            unpunctWord = word.substring(0, length-1);
+            BufferedReader dictReader = new BufferedReader(new FileReader("dictionary.txt"));
             
-            if ( dictionary.contains(unpunctWord) )
-            {
-                suggestWord = false;            // no need to ask for suggestion for a correct word.
-                return wordToCheck ;
-            }
-            else
+            while (dictReader.ready()) 
             {
-                return unpunctWord;                  // removing the punctuations and returning
+                String dictInput = dictReader.readLine() ;
+                String [] dict = dictInput.split("\\s");
+                
+                for(int i = 0; i < dict.length;i++) 
+                {
+                    // key and value are identical
+                    dictionary.add(dict[i]);
+                }
             }
+            dictReader.close();
         }
-
-        // Checking if an extra 'es' or "ed" or " ,"" is the problem (example: watches when watch is present in the dictionary)
-        if (length > 2 && word.substring(length-2).equals(",\"")  || word.substring(length-2).equals(".\"") 
-            || word.substring(length-2).equals("?\"") || word.substring(length-2).equals("!\"") )
+        try
         {
-            unpunctWord = word.substring(0, length-2);
-            
-            if ( dictionary.contains(unpunctWord) )
-            {
-                suggestWord = false;            // no need to ask for suggestion for a correct word.
-                return wordToCheck ;
-            }
-            else // not found
-                return unpunctWord;                  // removing the inflections and returning
+            // written aside and renamed over the old files, so a generation still mapping them keeps its copy
+            dictionary.writeTo("dictionary.bloom", checksum);
         }
-        
-        
-        
-        // After all these checks too, word could not be corrected, hence it must be misspelt word.
-        return word;
+        catch (IOException e)
+        {
+            System.out.println("Could not save dictionary.bloom: " + e.getMessage());
+        }
+        return dictionary;
+    }
+    
+    /*
+      Checks one word the way the input lines are checked (see spellengine.isKnown): known as it is, or once its
+      leading and trailing punctuation is stripped. Returns the word as given if it is known, else the lower cased
+      word stripped of its punctuation, and sets suggestWord if it is misspelt.
+    */
+    public String checkWord(String wordToCheck) 
+    {
+        tokenizer words = new tokenizer(wordToCheck.toLowerCase());
+        suggestWord = words.next() && !lookup.isKnown(words);
+        return suggestWord ? words.normalized() : wordToCheck;
     }
     
 }
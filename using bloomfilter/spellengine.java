@@ -0,0 +1,114 @@
+import java.util.*;
+
+/*
+  Reusable spell checking engine: a dictionary and a suggestion database, loaded once and never modified afterwards.
+  Every call keeps its lookup state (tokenizer, candidates) in locals, so one instance can serve any number of
+  concurrent callers. The dictionary backend is anything implementing wordset, e.g. dawg or a Bloom filter.
+*/
+public class spellengine {
+
+    static final int UNKNOWN = 0, AS_IS = 1, STRIPPED = 2;     // what known() found
+
+    private final wordset dictionary;
+    private final spellingsuggest suggest;
+
+    public spellengine(wordset dictionary, spellingsuggest suggest)
+    {
+        this.dictionary = dictionary;
+        this.suggest = suggest;
+    }
+
+    // The misspelt words of text, in text order, each with the word before it.
+    public List<misspelling> check(CharSequence text)
+    {
+        ArrayList<misspelling> found = new ArrayList<misspelling>();
+        tokenizer words = new tokenizer(text);
+        int previousStart = 0, previousEnd = 0;     // the last word seen, only spelt out for a misspelling
+        while (words.next())
+        {
+            if (!isKnown(words))
+            {
+                String previous = previousEnd > previousStart ? text.subSequence(previousStart, previousEnd).toString().toLowerCase() : null;
+                found.add(new misspelling(words.offset(), words.length(), words.token(), words.normalized(), previous));
+            }
+            if (words.wordLength() > 0)
+            {
+                previousStart = words.wordOffset();
+                previousEnd = previousStart + words.wordLength();
+            }
+        }
+        return found;
+    }
+
+    // True if the current token of words is spelt correctly, see known().
+    boolean isKnown(tokenizer words)
+    {
+        return known(words) != UNKNOWN;
+    }
+
+    /*
+      AS_IS if the whole current token of words is in the dictionary, or there is no word in it at all ("--"), else
+      STRIPPED if it is once stripped of its leading and trailing punctuation, else UNKNOWN.
+      Plain ASCII tokens are looked up straight from the text, so a correct word costs no allocation, and a token
+      without leading punctuation ("word,") in a single probe: the stripped word is a prefix of it.
+      With metrics on, the first probe and the retry without punctuation are timed as separate stages.
+    */
+    int known(tokenizer words)
+    {
+        if (words.wordLength() == 0)
+            return AS_IS;
+        long start = metrics.ENABLED ? System.nanoTime() : 0;
+        if (words.isAscii() && words.wordOffset() == words.offset())
+        {
+            int found = dictionary.containsLowerCase(words.text(), words.offset(), words.offset() + words.wordLength(),
+                                                     words.offset() + words.length());
+            if (metrics.ENABLED)
+                metrics.LOOKUP.record(System.nanoTime() - start);
+            return (found & wordset.WHOLE) != 0 ? AS_IS : (found & wordset.PREFIX) != 0 ? STRIPPED : UNKNOWN;
+        }
+        boolean known = isKnownAsIs(words);
+        long looked = metrics.ENABLED ? System.nanoTime() : 0;
+        if (metrics.ENABLED)
+            metrics.LOOKUP.record(looked - start);
+        if (known)
+            return AS_IS;
+        if (words.wordLength() == words.length())
+            return UNKNOWN;
+        known = isKnownStripped(words);
+        if (metrics.ENABLED)
+            metrics.PUNCTUATION.record(System.nanoTime() - looked);
+        return known ? STRIPPED : UNKNOWN;
+    }
+
+    private boolean isKnownAsIs(tokenizer words)
+    {
+        if (words.isAscii())
+            return dictionary.containsLowerCase(words.text(), words.offset(), words.offset() + words.length());
+        return dictionary.contains(words.token().toLowerCase());
+    }
+
+    private boolean isKnownStripped(tokenizer words)
+    {
+        if (words.isAscii())
+            return dictionary.containsLowerCase(words.text(), words.wordOffset(), words.wordOffset() + words.wordLength());
+        return dictionary.contains(words.normalized());
+    }
+
+    // The most probable correction of word, see spellingsuggest.correct().
+    public String correct(String word)
+    {
+        return suggest.correct(word);
+    }
+
+    // The most probable correction of word after previous, see spellingsuggest.correct(word, previous).
+    public String correct(String word, String previous)
+    {
+        return suggest.correct(word, previous);
+    }
+
+    // Up to k corrections of word, best first, see spellingsuggest.suggest().
+    public List<String> suggest(String word, int k)
+    {
+        return suggest.suggest(word, k);
+    }
+}
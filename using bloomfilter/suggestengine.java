@@ -0,0 +1,12 @@
+import java.util.*;
+
+// Common contract of the spelling suggestion backends, so spellingsuggest can pick one at construction.
+interface suggestengine {
+
+    // Returns the word itself if it is known, else its most probable correction, else spellingsuggest.NO_CORRECTION.
+    String correct(String word);
+
+    // Up to k corrections of word ranked by edit distance, then frequency, then as correct() breaks ties, so the first
+    // is correct()'s; just the word itself if it is known.
+    List<String> suggest(String word, int k);
+}
@@ -0,0 +1,169 @@
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+  Bounded, concurrent cache of correct() results, negative ones ("no possible corrections") included.
+  Misspellings follow a Zipf distribution, so a few thousand entries catch most of the repeated work.
+  Eviction is segmented LRU: a new word enters the probation segment and moves to the protected segment on its second
+  hit, so one-off typos cycle through probation without pushing out the frequent ones. The key space is split over
+  independently locked stripes to keep concurrent callers apart.
+  A cache belongs to one frequency database; a spellingsuggest built from new data starts with a new cache, and
+  clear() drops everything when the data behind an existing one changes.
+*/
+class suggestioncache {
+
+    static final int STRIPES = 16;
+    static final int PROTECTED_PERCENT = 80;
+
+    private final stripe[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public suggestioncache(int capacity)
+    {
+        int perStripe = Math.max(2, (capacity + STRIPES - 1) / STRIPES);
+        stripes = new stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++)
+            stripes[i] = new stripe(perStripe, evictions);
+    }
+
+    private stripe stripeOf(String word)
+    {
+        int h = word.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & (STRIPES - 1)];
+    }
+
+    // The cached result for word, or null.
+    public String get(String word)
+    {
+        String result = stripeOf(word).get(word);
+        if (result == null)
+            misses.increment();
+        else
+            hits.increment();
+        return result;
+    }
+
+    public void put(String word, String result)
+    {
+        stripeOf(word).put(word, result);
+    }
+
+    public void clear()
+    {
+        for (stripe s : stripes)
+            s.clear();
+    }
+
+    public long hits()
+    {
+        return hits.sum();
+    }
+
+    public long misses()
+    {
+        return misses.sum();
+    }
+
+    public long evictions()
+    {
+        return evictions.sum();
+    }
+
+    public double hitRate()
+    {
+        long h = hits(), total = h + misses();
+        return total == 0 ? 0 : (double)h / total;
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for (stripe s : stripes)
+            size += s.size();
+        return size;
+    }
+
+    public String toString()
+    {
+        return "suggestion cache: " + size() + " entries, " + hits() + " hits, " + misses() + " misses, "
+             + evictions() + " evictions, hit rate " + String.format("%.1f%%", 100 * hitRate());
+    }
+
+    // One lock's worth of the cache: two access ordered maps, eldest first.
+    private static class stripe
+    {
+        private final int probationCapacity, protectedCapacity;
+        private final LinkedHashMap<String, String> probation = new LinkedHashMap<String, String>(16, 0.75f, true);
+        private final LinkedHashMap<String, String> protect = new LinkedHashMap<String, String>(16, 0.75f, true);
+        private final LongAdder evictions;      // the cache's, shared by its stripes
+
+        stripe(int capacity, LongAdder evictions)
+        {
+            this.evictions = evictions;
+            protectedCapacity = Math.max(1, capacity * PROTECTED_PERCENT / 100);
+            probationCapacity = Math.max(1, capacity - protectedCapacity);
+        }
+
+        synchronized String get(String word)
+        {
+            String result = protect.get(word);
+            if (result != null)
+                return result;
+            result = probation.remove(word);
+            if (result != null)
+                promote(word, result);      // second hit: worth protecting
+            return result;
+        }
+
+        synchronized void put(String word, String result)
+        {
+            if (protect.containsKey(word))
+            {
+                protect.put(word, result);
+                return;
+            }
+            probation.put(word, result);
+            trimProbation();
+        }
+
+        private void promote(String word, String result)
+        {
+            protect.put(word, result);
+            if (protect.size() > protectedCapacity)
+            {
+                // the least recently used protected entry gets a second chance in probation
+                Iterator<Map.Entry<String, String>> eldest = protect.entrySet().iterator();
+                Map.Entry<String, String> e = eldest.next();
+                eldest.remove();
+                probation.put(e.getKey(), e.getValue());
+                trimProbation();
+            }
+        }
+
+        // Evicts the least recently used probation entry if probation is over capacity, whether a put or a promotion
+        // filled it.
+        private void trimProbation()
+        {
+            if (probation.size() <= probationCapacity)
+                return;
+            Iterator<String> eldest = probation.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+
+        synchronized void clear()
+        {
+            probation.clear();
+            protect.clear();
+        }
+
+        synchronized int size()
+        {
+            return probation.size() + protect.size();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.*;
+
+/*
+  Symmetric delete suggestion index.
+  At load time every deletion (up to MAX_DISTANCE characters) of every known word is stored together with the words
+  it came from. A query then only generates its own deletions and looks them up, instead of building every
+  deletion, transposition, replacement and insertion twice over like spellingsuggest.edits() does.
+  Any two words within Damerau-Levenshtein distance 2 share a common deletion of at most 2 characters, so the
+  lookups find every candidate; they are then verified with editdistance and ranked exactly like spellingsuggest.correct(),
+  ties included (see candidate).
+*/
+class symmetricdelete implements suggestengine {
+
+    static final int MAX_DISTANCE = 2;
+
+    private final frequencytable DBWords;
+    private final HashMap<String, ArrayList<String>> deletes = new HashMap<String, ArrayList<String>>();
+
+    public symmetricdelete(frequencytable words)
+    {
+        DBWords = words;
+        for (int i = 0; i < words.size(); i++)
+        {
+            String word = words.word(i);
+            for (String d : deletes(word))
+            {
+                ArrayList<String> origins = deletes.get(d);
+                if (origins == null)
+                {
+                    deletes.put(d, origins = new ArrayList<String>(1));
+                }
+                origins.add(word);
+            }
+        }
+        for (ArrayList<String> origins : deletes.values())
+        {
+            origins.trimToSize();
+        }
+    }
+
+    // All distinct strings obtained by removing up to MAX_DISTANCE characters from word, word itself included.
+    private static HashSet<String> deletes(String word)
+    {
+        HashSet<String> result = new HashSet<String>();
+        result.add(word);
+        ArrayList<String> level = new ArrayList<String>();
+        level.add(word);
+        for (int distance = 0; distance < MAX_DISTANCE; distance++)
+        {
+            ArrayList<String> next = new ArrayList<String>();
+            for (String s : level)
+            {
+                for (int i = 0; i < s.length(); i++)
+                {
+                    String d = s.substring(0, i) + s.substring(i + 1);
+                    if (result.add(d))
+                    {
+                        next.add(d);
+                    }
+                }
+            }
+            level = next;
+        }
+        return result;
+    }
+
+    public String correct(String word)
+    {
+        if (DBWords.frequencyOf(word) != frequencytable.ABSENT)
+        {
+            return word;    // this is a perfectly safe word.
+        }
+        // Same two stages as spellingsuggest.correct(): the most frequent word at distance 1, else at distance 2.
+        topk best = new topk(1);
+        candidates(word, best);
+        return best.size() == 0 ? spellingsuggest.NO_CORRECTION : best.words().get(0);
+    }
+
+    public List<String> suggest(String word, int k)
+    {
+        if (DBWords.frequencyOf(word) != frequencytable.ABSENT)
+        {
+            return Collections.singletonList(word);
+        }
+        topk best = new topk(k);
+        candidates(word, best);
+        return best.words();
+    }
+
+    // Offers every known word within MAX_DISTANCE of word, found through the deletes of word and verified, to best.
+    private void candidates(String word, topk best)
+    {
+        HashSet<String> seen = new HashSet<String>();
+        for (String d : deletes(word))
+        {
+            ArrayList<String> origins = deletes.get(d);
+            if (origins == null)
+            {
+                continue;
+            }
+            for (String origin : origins)
+            {
+                if (!seen.add(origin))
+                {
+                    continue;
+                }
+                int distance = editdistance.damerau(word, origin, true);
+                if (distance <= MAX_DISTANCE)
+                {
+                    best.offer(new candidate(origin, distance, DBWords.frequencyOf(origin), word));
+                }
+            }
+        }
+    }
+}
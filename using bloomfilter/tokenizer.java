@@ -0,0 +1,140 @@
+/*
+  Single pass tokenizer over a line or a whole document.
+  Tokens are the runs between whitespace (what split("\\s") returns, minus the empty strings). For each token it
+  records the raw span and the "word" span left after stripping leading and trailing punctuation, found with a
+  character class table instead of substring() comparisons. Nothing is allocated while scanning: the spans are plain
+  ints, and token() / normalized() build Strings only when a caller asks for them, typically for a misspelling.
+  A tokenizer is reused through reset() and must not be shared between threads.
+*/
+final class tokenizer {
+
+    private static final byte OTHER = 0, WHITESPACE = 1, PUNCTUATION = 2;
+    private static final byte[] ASCII_CLASS = new byte[128];
+    static
+    {
+        for (char c : " \t\n\u000B\f\r".toCharArray())
+            ASCII_CLASS[c] = WHITESPACE;
+        for (char c : "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~".toCharArray())
+            ASCII_CLASS[c] = PUNCTUATION;
+    }
+
+    private CharSequence text;
+    private int position, end;
+    private int tokenStart, tokenEnd, wordStart, wordEnd;
+    private boolean ascii;
+
+    public tokenizer(CharSequence text)
+    {
+        reset(text, 0, text.length());
+    }
+
+    public void reset(CharSequence text)
+    {
+        reset(text, 0, text.length());
+    }
+
+    public void reset(CharSequence text, int start, int end)
+    {
+        this.text = text;
+        this.position = start;
+        this.end = end;
+        tokenStart = tokenEnd = wordStart = wordEnd = start;
+    }
+
+    static boolean isWhitespace(char c)
+    {
+        return c < 128 && ASCII_CLASS[c] == WHITESPACE;
+    }
+
+    static boolean isPunctuation(char c)
+    {
+        if (c < 128)
+            return ASCII_CLASS[c] == PUNCTUATION;
+        switch (Character.getType(c))
+        {
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // Moves to the next token, returns false at the end of the text.
+    public boolean next()
+    {
+        while (position < end && isWhitespace(text.charAt(position)))
+            position++;
+        if (position == end)
+            return false;
+
+        tokenStart = position;
+        ascii = true;
+        while (position < end)
+        {
+            char c = text.charAt(position);
+            if (isWhitespace(c))
+                break;
+            if (c >= 128)
+                ascii = false;
+            position++;
+        }
+        tokenEnd = position;
+
+        wordStart = tokenStart;
+        wordEnd = tokenEnd;
+        while (wordStart < wordEnd && isPunctuation(text.charAt(wordStart)))
+            wordStart++;
+        while (wordEnd > wordStart && isPunctuation(text.charAt(wordEnd - 1)))
+            wordEnd--;
+        return true;
+    }
+
+    public int offset()
+    {
+        return tokenStart;
+    }
+
+    public int length()
+    {
+        return tokenEnd - tokenStart;
+    }
+
+    // Span of the token without its leading and trailing punctuation; empty for a token made of punctuation only.
+    public int wordOffset()
+    {
+        return wordStart;
+    }
+
+    public int wordLength()
+    {
+        return wordEnd - wordStart;
+    }
+
+    // True when the token is plain ASCII, so lower casing it char by char gives the same as String.toLowerCase().
+    public boolean isAscii()
+    {
+        return ascii;
+    }
+
+    public CharSequence text()
+    {
+        return text;
+    }
+
+    // The raw token.
+    public String token()
+    {
+        return text.subSequence(tokenStart, tokenEnd).toString();
+    }
+
+    // The lower cased word, i.e. the form to look up and to ask suggestions for.
+    public String normalized()
+    {
+        return text.subSequence(wordStart, wordEnd).toString().toLowerCase();
+    }
+}
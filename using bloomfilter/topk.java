@@ -0,0 +1,76 @@
+import java.util.*;
+
+/*
+  Keeps the k best candidates seen so far in a heap with the worst of them on top, so offering a candidate costs
+  O(log k) and memory stays at k entries however many candidates a search turns up.
+  Words are deduplicated, so a word reached through several edit paths is counted once at its smallest distance.
+*/
+final class topk {
+
+    private final int k;
+    private final PriorityQueue<candidate> heap;
+    private final HashMap<String, candidate> kept;
+
+    topk(int k)
+    {
+        this.k = k;
+        heap = new PriorityQueue<candidate>(Math.max(1, k), Collections.reverseOrder());
+        kept = new HashMap<String, candidate>();
+    }
+
+    // Returns true if the candidate made it into the k best.
+    boolean offer(candidate c)
+    {
+        if (k <= 0)
+            return false;
+        candidate previous = kept.get(c.word);
+        if (previous != null)
+        {
+            if (c.compareTo(previous) >= 0)
+                return false;
+            heap.remove(previous);
+            kept.remove(c.word);
+        }
+        else if (heap.size() == k)
+        {
+            if (c.compareTo(heap.peek()) >= 0)
+                return false;
+            kept.remove(heap.poll().word);
+        }
+        heap.add(c);
+        kept.put(c.word, c);
+        return true;
+    }
+
+    boolean contains(String word)
+    {
+        return kept.containsKey(word);
+    }
+
+    boolean full()
+    {
+        return heap.size() == k;
+    }
+
+    int size()
+    {
+        return heap.size();
+    }
+
+    // The worst of the k kept candidates, null until the heap is full; anything not better than it is rejected.
+    candidate worst()
+    {
+        return full() ? heap.peek() : null;
+    }
+
+    // The kept words, best first.
+    List<String> words()
+    {
+        ArrayList<candidate> sorted = new ArrayList<candidate>(heap);
+        Collections.sort(sorted);
+        ArrayList<String> words = new ArrayList<String>(sorted.size());
+        for (candidate c : sorted)
+            words.add(c.word);
+        return words;
+    }
+}
@@ -0,0 +1,283 @@
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/*
+  Derives a stem list and suffix/prefix rules from a flat word list such as dictionary.txt, and writes them as a
+  Hunspell dictionary: <name>.dic, one stem a line with the numbers of the rules it takes, and <name>.aff, the rules.
+  A suffix rule strips at most one letter off the end of a stem and appends a longer ending ("y" -> "ies", "" -> "'s"),
+  a prefix rule puts letters in front ("un", "re"). Rules are what the list itself shows: every way a word can be
+  spelt as another word of at least MIN_STEM letters plus an ending, kept if at least MIN_USES pairs show it.
+  Words are then taken shortest first: a word that an already kept stem and a rule spell is dropped and the rule's
+  flag added to that stem, the most used rule winning, and any other word becomes a stem. Rules left spelling fewer
+  than MIN_USES words are dropped and the stems assigned again, until every remaining rule is used that often.
+  A stem only carries the flags of words that are in the list, so stems and rules accept exactly the words of the
+  list, no more and no fewer (see affixdictionary).
+  java affixconverter [dictionary.txt [name]]   writes name.dic and name.aff, name defaulting to "dictionary".
+*/
+final class affixconverter {
+
+    static final int MAX_APPEND = 5;    // longest ending a suffix rule appends
+    static final int MAX_PREFIX = 4;    // longest prefix a prefix rule puts in front
+    static final int MIN_USES = 10;     // words a rule must spell to be kept
+    static final int MIN_STEM = 3;      // shortest stem a rule applies to
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // A suffix rule "strip append" or a prefix rule "append", numbered from 1 by decreasing use.
+    static final class rule
+    {
+        final boolean prefix;
+        final String strip;
+        final String append;
+        int flag;
+        int uses;
+
+        rule(boolean prefix, String strip, String append)
+        {
+            this.prefix = prefix;
+            this.strip = strip;
+            this.append = append;
+        }
+
+        String key()
+        {
+            return (prefix ? "PFX " : "SFX ") + strip + " " + append;
+        }
+
+        // The word this rule spells from stem.
+        String apply(String stem)
+        {
+            return prefix ? append + stem : stem.substring(0, stem.length() - strip.length()) + append;
+        }
+
+        // The stem this rule would spell word from, null if word does not have the rule's affix.
+        String stem(String word)
+        {
+            if (prefix)
+                return word.length() >= append.length() + MIN_STEM && word.startsWith(append) ? word.substring(append.length()) : null;
+            if (word.length() < append.length() + MIN_STEM || !word.endsWith(append))
+                return null;
+            return word.substring(0, word.length() - append.length()) + strip;
+        }
+    }
+
+    private final List<String> words;
+    private final List<rule> rules = new ArrayList<rule>();
+    private final LinkedHashMap<String, TreeSet<Integer>> stems = new LinkedHashMap<String, TreeSet<Integer>>();
+
+    affixconverter(Collection<String> words)
+    {
+        this.words = new ArrayList<String>(new LinkedHashSet<String>(words));
+        findRules();
+        assignStems();
+    }
+
+    // Reads a whitespace separated word list the way dawg.load() does.
+    static List<String> read(String file) throws IOException
+    {
+        ArrayList<String> words = new ArrayList<String>();
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+        for (String line = in.readLine(); line != null; line = in.readLine())
+        {
+            for (String word : line.split("\\s"))
+            {
+                if (!word.isEmpty())
+                    words.add(word);
+            }
+        }
+        in.close();
+        return words;
+    }
+
+    // Counts every (strip, append) and prefix relating two words of the list, keeps those used often enough.
+    private void findRules()
+    {
+        HashSet<String> all = new HashSet<String>(words);
+        HashMap<String, rule> seen = new HashMap<String, rule>();
+        for (String word : words)
+        {
+            int n = word.length();
+            for (int k = Math.max(MIN_STEM, n - MAX_APPEND); k < n; k++)
+            {
+                String base = word.substring(0, k), append = word.substring(k);
+                if (all.contains(base))
+                    use(seen, false, "", append);
+                if (append.length() < 2)
+                    continue;           // a rule must lengthen its stem
+                for (char c = 'a'; c <= 'z'; c++)
+                {
+                    if (all.contains(base + c))
+                        use(seen, false, String.valueOf(c), append);
+                }
+            }
+            for (int k = 1; k <= MAX_PREFIX && n - k >= MIN_STEM; k++)
+            {
+                if (all.contains(word.substring(k)))
+                    use(seen, true, "", word.substring(0, k));
+            }
+        }
+        for (rule r : seen.values())
+        {
+            if (r.uses >= MIN_USES)
+                rules.add(r);
+        }
+        Collections.sort(rules, new Comparator<rule>() {
+            public int compare(rule a, rule b)
+            {
+                return a.uses != b.uses ? (a.uses > b.uses ? -1 : 1) : a.key().compareTo(b.key());
+            }
+        });
+    }
+
+    private static void use(HashMap<String, rule> seen, boolean prefix, String strip, String append)
+    {
+        rule r = new rule(prefix, strip, append);
+        rule known = seen.get(r.key());
+        if (known == null)
+            seen.put(r.key(), known = r);
+        known.uses++;
+    }
+
+    private void assignStems()
+    {
+        // the most used rules first, numbered in that order once no rule is dropped any more
+        for (int dropped = 1; dropped > 0; )
+        {
+            assign();
+            dropped = 0;
+            for (Iterator<rule> i = rules.iterator(); i.hasNext(); )
+            {
+                if (i.next().uses < MIN_USES)
+                {
+                    i.remove();
+                    dropped++;
+                }
+            }
+        }
+    }
+
+    // Shortest words first, so the stem a word would come from has always been decided before the word.
+    private void assign()
+    {
+        stems.clear();
+        HashMap<String, List<rule>> suffixes = new HashMap<String, List<rule>>();
+        HashMap<String, List<rule>> prefixes = new HashMap<String, List<rule>>();
+        for (int i = 0; i < rules.size(); i++)
+        {
+            rule r = rules.get(i);
+            r.flag = i + 1;     // by decreasing use, so a lower flag is the more used rule
+            r.uses = 0;
+            HashMap<String, List<rule>> index = r.prefix ? prefixes : suffixes;
+            if (!index.containsKey(r.append))
+                index.put(r.append, new ArrayList<rule>());
+            index.get(r.append).add(r);
+        }
+        ArrayList<String> order = new ArrayList<String>(words);
+        Collections.sort(order, new Comparator<String>() {
+            public int compare(String a, String b)
+            {
+                return a.length() - b.length();
+            }
+        });
+        for (String word : order)
+        {
+            rule best = null;
+            for (int k = 1; k <= Math.max(MAX_APPEND, MAX_PREFIX) && k < word.length(); k++)
+            {
+                best = better(suffixes.get(word.substring(word.length() - k)), word, best);
+                best = better(prefixes.get(word.substring(0, k)), word, best);
+            }
+            if (best == null)
+            {
+                stems.put(word, new TreeSet<Integer>());
+                continue;
+            }
+            stems.get(best.stem(word)).add(best.flag);
+            best.uses++;
+        }
+    }
+
+    // The most used of best and the rules that spell word from a kept stem.
+    private rule better(List<rule> rules, String word, rule best)
+    {
+        if (rules == null)
+            return best;
+        for (rule r : rules)
+        {
+            String stem = r.stem(word);
+            if ((best == null || r.flag < best.flag) && stem != null && stems.containsKey(stem))
+                best = r;
+        }
+        return best;
+    }
+
+    int words()
+    {
+        return words.size();
+    }
+
+    int stems()
+    {
+        return stems.size();
+    }
+
+    int rules()
+    {
+        return rules.size();
+    }
+
+    // Writes name.dic and name.aff; rules no word ended up using are left out.
+    void write(String name) throws IOException
+    {
+        Writer aff = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(name + ".aff"), UTF8));
+        aff.write("# derived from a flat word list by affixconverter\nSET UTF-8\nFLAG num\n");
+        for (rule r : rules)
+        {
+            if (r.uses == 0)
+                continue;
+            String type = r.prefix ? "PFX" : "SFX";
+            String condition = r.strip.isEmpty() ? "." : r.strip;
+            aff.write("\n" + type + " " + r.flag + " N 1\n");
+            aff.write(type + " " + r.flag + " " + (r.strip.isEmpty() ? "0" : r.strip) + " " + r.append + " " + condition + "\n");
+        }
+        aff.close();
+
+        Writer dic = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(name + ".dic"), UTF8));
+        dic.write(stems.size() + "\n");
+        for (Map.Entry<String, TreeSet<Integer>> stem : stems.entrySet())
+        {
+            dic.write(stem.getKey());
+            String separator = "/";
+            for (int flag : stem.getValue())
+            {
+                dic.write(separator + flag);
+                separator = ",";
+            }
+            dic.write("\n");
+        }
+        dic.close();
+    }
+
+    public static void main(String [] args) throws IOException
+    {
+        String file = args.length > 0 ? args[0] : "dictionary.txt";
+        String name = args.length > 1 ? args[1] : "dictionary";
+        long start = System.nanoTime();
+        affixconverter converter = new affixconverter(read(file));
+        converter.write(name);
+        int used = 0;
+        for (rule r : converter.rules)
+        {
+            if (r.uses > 0)
+                used++;
+        }
+        System.out.println(file + ": " + converter.words() + " words -> " + name + ".dic: " + converter.stems() + " stems, "
+                         + name + ".aff: " + used + " rules, in " + (System.nanoTime() - start) / 1000000 + " ms");
+        for (int i = 0; i < Math.min(10, converter.rules.size()); i++)
+        {
+            rule r = converter.rules.get(i);
+            System.out.println("  " + r.key() + ": " + r.uses + " words");
+        }
+    }
+}
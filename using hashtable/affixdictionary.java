@@ -0,0 +1,252 @@
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/*
+  A dictionary kept as stems and affix rules, read from the .dic and .aff files affixconverter writes (a subset of
+  the Hunspell format: numeric flags, one rule per flag, no cross products or continuation classes).
+  A word is known if it is a stem, or if stripping the ending of some suffix rule (and putting back what the rule
+  strips) or the letters of some prefix rule gives a stem flagged with that rule. Only the stems are stored, each
+  with its flags as a sorted short[] shared by every stem with the same flags; the rules are looked up by their
+  ending, so a lookup costs one probe for the word and one per rule whose ending it has.
+*/
+final class affixdictionary implements wordset {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final short[] NO_FLAGS = new short[0];
+
+    // One suffix or prefix rule: the flag a stem needs for it, what it strips from the stem and what it adds.
+    private static final class affix
+    {
+        final short flag;
+        final String strip;
+
+        affix(short flag, String strip)
+        {
+            this.flag = flag;
+            this.strip = strip;
+        }
+    }
+
+    private final HashMap<String, short[]> stems = new HashMap<String, short[]>();
+    private final HashMap<String, affix[]> suffixes = new HashMap<String, affix[]>();    // by the ending they append
+    private final HashMap<String, affix[]> prefixes = new HashMap<String, affix[]>();    // by the letters they put in front
+    private int longestSuffix, longestPrefix, rules;
+
+    // Loads name.dic and name.aff.
+    static affixdictionary load(String name) throws IOException
+    {
+        affixdictionary dictionary = new affixdictionary();
+        dictionary.readRules(name + ".aff");
+        dictionary.readStems(name + ".dic");
+        return dictionary;
+    }
+
+    private void readRules(String file) throws IOException
+    {
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+        for (String line = in.readLine(); line != null; line = in.readLine())
+        {
+            String[] fields = line.trim().split("\\s+");
+            boolean prefix = fields[0].equals("PFX");
+            if ((!prefix && !fields[0].equals("SFX")) || fields.length < 5)
+                continue;       // not a rule, or the header line of one: PFX/SFX flag cross-product count
+            affix rule = new affix(flag(fields[1]), fields[2].equals("0") ? "" : fields[2]);
+            String append = fields[3].equals("0") ? "" : fields[3];
+            HashMap<String, affix[]> rules = prefix ? prefixes : suffixes;
+            affix[] same = rules.get(append);
+            same = same == null ? new affix[1] : Arrays.copyOf(same, same.length + 1);
+            same[same.length - 1] = rule;
+            rules.put(append, same);
+            if (prefix)
+                longestPrefix = Math.max(longestPrefix, append.length());
+            else
+                longestSuffix = Math.max(longestSuffix, append.length());
+            this.rules++;
+        }
+        in.close();
+    }
+
+    private void readStems(String file) throws IOException
+    {
+        HashMap<String, short[]> flagSets = new HashMap<String, short[]>();
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+        in.readLine();          // the number of stems
+        for (String line = in.readLine(); line != null; line = in.readLine())
+        {
+            int slash = line.indexOf('/');
+            if (slash < 0)
+            {
+                if (!line.isEmpty())
+                    stems.put(line, NO_FLAGS);
+                continue;
+            }
+            String flags = line.substring(slash + 1);
+            short[] set = flagSets.get(flags);
+            if (set == null)
+            {
+                String[] numbers = flags.split(",");
+                set = new short[numbers.length];
+                for (int i = 0; i < numbers.length; i++)
+                    set[i] = flag(numbers[i]);
+                Arrays.sort(set);
+                flagSets.put(flags, set);
+            }
+            stems.put(line.substring(0, slash), set);
+        }
+        in.close();
+    }
+
+    private static short flag(String number)
+    {
+        int flag = Integer.parseInt(number);
+        if (flag < 1 || flag > 65000)
+            throw new IllegalArgumentException("not a numeric flag: " + number);
+        return (short)flag;
+    }
+
+    private boolean hasFlag(String stem, short flag)
+    {
+        short[] flags = stems.get(stem);
+        return flags != null && Arrays.binarySearch(flags, flag) >= 0;
+    }
+
+    public boolean contains(String word)
+    {
+        if (stems.containsKey(word))
+            return true;
+        int n = word.length();
+        for (int k = 1; k <= longestSuffix && k < n; k++)
+        {
+            affix[] rules = suffixes.get(word.substring(n - k));
+            if (rules == null)
+                continue;
+            String base = word.substring(0, n - k);
+            for (affix rule : rules)
+            {
+                if (hasFlag(rule.strip.isEmpty() ? base : base + rule.strip, rule.flag))
+                    return true;
+            }
+        }
+        for (int k = 1; k <= longestPrefix && k < n; k++)
+        {
+            affix[] rules = prefixes.get(word.substring(0, k));
+            if (rules == null)
+                continue;
+            String base = word.substring(k);
+            for (affix rule : rules)
+            {
+                if (hasFlag(base, rule.flag))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean containsLowerCase(CharSequence text, int start, int end)
+    {
+        return contains(text.subSequence(start, end).toString().toLowerCase());
+    }
+
+    public int containsLowerCase(CharSequence text, int start, int prefixEnd, int end)
+    {
+        return (containsLowerCase(text, start, end) ? WHOLE : 0) | (containsLowerCase(text, start, prefixEnd) ? PREFIX : 0);
+    }
+
+    public int stems()
+    {
+        return stems.size();
+    }
+
+    public int rules()
+    {
+        return rules;
+    }
+
+    /*
+      java affixdictionary [dictionary.txt [name]]: checks that name.dic and name.aff (written by affixconverter from
+      the same list) accept exactly its words, and compares entries, heap and lookups per second with the flat
+      Hashtable the dictionary used to be kept in and with dawg.
+    */
+    public static void main(String [] args) throws IOException
+    {
+        String file = args.length > 0 ? args[0] : "dictionary.txt";
+        String name = args.length > 1 ? args[1] : "dictionary";
+        List<String> words = affixconverter.read(file);
+
+        long before = usedMemory();
+        long start = System.nanoTime();
+        Hashtable<String, String> table = new Hashtable<String, String>();
+        for (String word : affixconverter.read(file))
+            table.put(word, word);      // key and value are identical, as spellchecker had it
+        long tableMillis = (System.nanoTime() - start) / 1000000;
+        long tableBytes = usedMemory() - before;
+
+        before = usedMemory();
+        start = System.nanoTime();
+        affixdictionary affixes = load(name);
+        long affixMillis = (System.nanoTime() - start) / 1000000;
+        long affixBytes = usedMemory() - before;
+
+        before = usedMemory();
+        dawg graph = new dawg(words);
+        long dawgBytes = usedMemory() - before;
+
+        // the same answers for every word of the list and for each of them with one letter replaced
+        Random random = new Random(0x5eed);
+        ArrayList<String> probes = new ArrayList<String>();
+        for (String word : words)
+        {
+            probes.add(word);
+            int i = random.nextInt(word.length());
+            probes.add(word.substring(0, i) + (char)('a' + random.nextInt(26)) + word.substring(i + 1));
+        }
+        Collections.shuffle(probes, random);
+        int disagree = 0;
+        for (String probe : probes)
+        {
+            if (affixes.contains(probe) != table.containsKey(probe))
+                disagree++;
+        }
+
+        System.out.println("entries:  Hashtable " + table.size() + " words, affixes " + affixes.stems() + " stems + "
+                         + affixes.rules() + " rules");
+        System.out.println("heap:     Hashtable " + tableBytes / 1024 + " KB, affixes " + affixBytes / 1024 + " KB, dawg "
+                         + dawgBytes / 1024 + " KB");
+        System.out.println("load:     Hashtable " + tableMillis + " ms from " + file + ", affixes " + affixMillis + " ms from "
+                         + name + ".dic/.aff");
+        System.out.println("answers:  " + disagree + " of " + probes.size() + " lookups differ");
+        String[] mix = probes.toArray(new String[probes.size()]);
+        for (int round = 0; round < 3; round++)
+        {
+            System.out.println("lookups:  Hashtable " + perSecond(table.keySet(), null, mix) + "/s, affixes "
+                             + perSecond(null, affixes, mix) + "/s, dawg " + perSecond(null, graph, mix) + "/s");
+        }
+    }
+
+    // Lookups per second of half hits, half misses, through the set or the wordset given.
+    private static long perSecond(Set<String> set, wordset words, String[] mix)
+    {
+        int found = 0;
+        long start = System.nanoTime();
+        for (String probe : mix)
+        {
+            if (set != null ? set.contains(probe) : words.contains(probe))
+                found++;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (found < 0)
+            System.out.println();   // keeps found, and the lookups with it, alive
+        return mix.length * 1000000000L / elapsed;
+    }
+
+    private static long usedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++)
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
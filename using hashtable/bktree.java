@@ -0,0 +1,168 @@
+import java.util.*;
+
+/*
+  BK-tree suggestion backend keyed on Damerau-Levenshtein distance.
+  Every child of a node sits at a fixed distance from it, so by the triangle inequality a query at distance d from a
+  node only has to visit the children in [d - bound, d + bound]. The search cost is driven by the dictionary around
+  the query instead of by the number of edits generated, which makes distance 3 affordable for long or garbled words.
+*/
+class bktree implements suggestengine {
+
+    static final int MIN_DISTANCE = 1;
+    static final int MAX_DISTANCE = 3;
+
+    private static class node
+    {
+        final String word;
+        final int count;
+        HashMap<Integer, node> children;
+
+        node(String word, int count)
+        {
+            this.word = word;
+            this.count = count;
+        }
+    }
+
+    private final frequencytable DBWords;
+    private final int maxDistance;
+    private node root;
+
+    public bktree(frequencytable words, int maxDistance)
+    {
+        if (maxDistance < MIN_DISTANCE || maxDistance > MAX_DISTANCE)
+        {
+            throw new IllegalArgumentException("maximum edit distance must be between " + MIN_DISTANCE + " and " + MAX_DISTANCE + ": " + maxDistance);
+        }
+        this.DBWords = words;
+        this.maxDistance = maxDistance;
+
+        // Inserting in sorted order keeps the tree shape the same from one run to the next.
+        String[] sorted = new String[words.size()];
+        for (int i = 0; i < sorted.length; i++)
+        {
+            sorted[i] = words.word(i);
+        }
+        Arrays.sort(sorted);
+        for (String word : sorted)
+        {
+            add(word, words.frequencyOf(word));
+        }
+    }
+
+    private void add(String word, int count)
+    {
+        if (root == null)
+        {
+            root = new node(word, count);
+            return;
+        }
+        node current = root;
+        while (true)
+        {
+            int distance = editdistance.damerau(word, current.word);
+            if (current.children == null)
+            {
+                current.children = new HashMap<Integer, node>(4);
+            }
+            node child = current.children.get(distance);
+            if (child == null)
+            {
+                current.children.put(distance, new node(word, count));
+                return;
+            }
+            current = child;
+        }
+    }
+
+    /*
+      Returns the word itself if known, else the most frequent word at the smallest distance up to maxDistance.
+      Once a match at distance d is found the search bound shrinks to d, which prunes the rest of the walk.
+    */
+    public String correct(String word)
+    {
+        if (DBWords.frequencyOf(word) != frequencytable.ABSENT)
+        {
+            return word;    // this is a perfectly safe word.
+        }
+        if (root == null)
+        {
+            return spellingsuggest.NO_CORRECTION;
+        }
+        candidate best = null;
+        int bound = maxDistance;
+
+        ArrayDeque<node> pending = new ArrayDeque<node>();
+        pending.push(root);
+        while (!pending.isEmpty())
+        {
+            node current = pending.pop();
+            int distance = editdistance.damerau(word, current.word);
+            if (distance <= bound)
+            {
+                candidate found = new candidate(current.word, distance, current.count, word);
+                if (best == null || found.compareTo(best) < 0)
+                {
+                    best = found;
+                    bound = distance;
+                }
+            }
+            if (current.children == null)
+            {
+                continue;
+            }
+            for (int d = Math.max(1, distance - bound); d <= distance + bound; d++)
+            {
+                node child = current.children.get(d);
+                if (child != null)
+                {
+                    pending.push(child);
+                }
+            }
+        }
+        return best == null ? spellingsuggest.NO_CORRECTION : best.word;
+    }
+
+    /*
+      Up to k words within maxDistance of word, ranked by distance, then frequency, then as candidate breaks ties.
+      Once k words are held the search bound drops to the distance of the worst of them, since nothing farther can
+      displace it.
+    */
+    public List<String> suggest(String word, int k)
+    {
+        if (DBWords.frequencyOf(word) != frequencytable.ABSENT)
+        {
+            return Collections.singletonList(word);
+        }
+        topk best = new topk(k);
+        if (root == null)
+        {
+            return best.words();
+        }
+        int bound = maxDistance;
+        ArrayDeque<node> pending = new ArrayDeque<node>();
+        pending.push(root);
+        while (!pending.isEmpty())
+        {
+            node current = pending.pop();
+            int distance = editdistance.damerau(word, current.word);
+            if (distance <= bound && best.offer(new candidate(current.word, distance, current.count, word)) && best.full())
+            {
+                bound = best.worst().distance;
+            }
+            if (current.children == null)
+            {
+                continue;
+            }
+            for (int d = Math.max(1, distance - bound); d <= distance + bound; d++)
+            {
+                node child = current.children.get(d);
+                if (child != null)
+                {
+                    pending.push(child);
+                }
+            }
+        }
+        return best.words();
+    }
+}
@@ -0,0 +1,52 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/*
+  The bytes of a window of a file read as chars, one char a byte, so tokenizer and wordset.containsLowerCase() can
+  scan ASCII text without decoding it. Bytes above 127 come out as chars above 127, which tokenizer flags as
+  non-ASCII; whitespace is ASCII only, and no byte of a UTF-8 multi-byte character is ASCII, so tokens still split
+  where they would in the decoded text. Only subSequence() decodes, from UTF-8, for the words a caller keeps.
+  reset() copies the window out of its mapping in one bulk get: the scan then reads a plain array, about a third
+  faster than going through ByteBuffer.get() for every char.
+*/
+final class bytetext implements CharSequence {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private byte[] bytes = new byte[0];
+    private int length;
+
+    void reset(ByteBuffer window)
+    {
+        length = window.remaining();
+        if (bytes.length < length)
+            bytes = new byte[length];
+        window.get(bytes, 0, length);
+    }
+
+    public int length()
+    {
+        return length;
+    }
+
+    public char charAt(int index)
+    {
+        return (char)(bytes[index] & 0xFF);
+    }
+
+    public CharSequence subSequence(int start, int end)
+    {
+        return decode(start, end);
+    }
+
+    // The bytes [start, end) decoded from UTF-8.
+    String decode(int start, int end)
+    {
+        return new String(bytes, start, end - start, UTF8);
+    }
+
+    public String toString()
+    {
+        return decode(0, length);
+    }
+}
@@ -0,0 +1,42 @@
+import java.util.*;
+
+/*
+  A suggestion with its edit distance and corpus count, ordered best first: closer, then more frequent, then the one
+  spellingsuggest.correct() would keep, the one the edits of the misspelt word spell last (see editgenerator.order()).
+  That order is only worked out for candidates that tie on count; it is the same for every backend, so they all
+  pick the same word. Past it, or beyond distance 2, alphabetical.
+*/
+final class candidate implements Comparable<candidate> {
+
+    final String word;
+    final int distance;
+    final int count;
+    private final String misspelt;
+    private long order = -2;    // editgenerator.order(), -2 until needed
+
+    candidate(String word, int distance, int count, String misspelt)
+    {
+        this.word = word;
+        this.distance = distance;
+        this.count = count;
+        this.misspelt = misspelt;
+    }
+
+    private long order()
+    {
+        if (order == -2)
+            order = editgenerator.order(misspelt, word, distance);
+        return order;
+    }
+
+    public int compareTo(candidate other)
+    {
+        if (distance != other.distance)
+            return distance < other.distance ? -1 : 1;
+        if (count != other.count)
+            return count > other.count ? -1 : 1;
+        if (order() != other.order())
+            return order() > other.order() ? -1 : 1;
+        return word.compareTo(other.word);
+    }
+}
@@ -0,0 +1,265 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+  A Bloom filter of the frequency corpus words, small enough to stay in the L2 cache, that spellingsuggest asks
+  before probing its frequencytable with a candidate edit. Nearly all of the thousands of edits a correction tries
+  are not words, and each of them costs a probe of the table's index, and often of the hashes next to it: cache
+  misses once the corpus outgrows L2. The filter turns most of them away after reading a single long.
+  Every word sets k bits of one long, picked by multiply-shift (a register blocked Bloom filter), and is keyed on
+  its String.hashCode(), which editgenerator has worked out for every edit already, so no candidate is hashed twice.
+  Words with equal hashes share their bits, frequencytable tells them apart anyway.
+  It gets BITS_PER_KEY bits a word, but no more than -Dspellchecker.prefilter.kb (default L2_KB, 0 turns it off);
+  a corpus too big for the budget to leave MAX_FALSE_POSITIVES or less is probed without one, as a filter letting
+  most non-words through costs more than it saves. java candidatefilter compares budgets on a corpus.
+  With metrics on it counts the probes, the ones it rejected (frequencytable probes saved) and its false positives.
+*/
+public class candidatefilter implements candidatefilterMBean {
+
+    static final int L2_KB = 256;           // a share of L2 that leaves room for the rest of a search
+    static final int BUDGET_KB = Integer.getInteger("spellchecker.prefilter.kb", L2_KB);
+    static final int BITS_PER_KEY = 12;
+    static final int MAX_K = 8;
+    static final double MAX_FALSE_POSITIVES = 0.3;  // about where the filter stops paying for its own probe
+
+    // One odd multiplier per bit; the top 6 bits of (hash * salt) pick the bit inside the long (see blockedbloomfilter).
+    private static final int[] SALT = { 0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d,
+                                        0x705495c7, 0x2df1424b, 0x9efc4947, 0x5c6bfb31 };
+
+    private final long[] bits;
+    private final int k;
+    private final int keys;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    // A filter of the words of table, sized within budgetKB; null if that is 0, too small for table, or table is empty.
+    static candidatefilter of(frequencytable table, int budgetKB)
+    {
+        if (budgetKB <= 0 || table.size() == 0)
+            return null;
+        int longs = (int)Math.max(1, Math.min((long)budgetKB * 1024 / 8, ((long)table.size() * BITS_PER_KEY + 63) / 64));
+        if (falsePositiveProbability(table.size(), longs, bestK(table.size(), longs)) > MAX_FALSE_POSITIVES)
+            return null;
+        return new candidatefilter(table, longs);
+    }
+
+    private candidatefilter(frequencytable table, int longs)
+    {
+        bits = new long[longs];
+        keys = table.size();
+        k = bestK(keys, longs);
+        for (int entry = 0; entry < keys; entry++)
+        {
+            long z = mix(table.hash(entry));
+            bits[word(z)] |= mask((int)z);
+        }
+    }
+
+    // The number of bits a key sets that gives the fewest false positives for keys words over longs longs.
+    private static int bestK(int keys, int longs)
+    {
+        int best = 1;
+        for (int k = 2; k <= MAX_K; k++)
+        {
+            if (falsePositiveProbability(keys, longs, k) < falsePositiveProbability(keys, longs, best))
+                best = k;
+        }
+        return best;
+    }
+
+    private static double falsePositiveProbability(double keys, long longs, int k)
+    {
+        // Longs receive a Poisson(keys / longs) number of words; a long holding j of them has each of its bits set
+        // with probability 1 - (63/64)^(j k), and answers a false positive if the k bits probed are all set.
+        double lambda = keys / longs;
+        double poisson = Math.exp(-lambda), probability = 0;
+        int limit = (int)(lambda + 10 * Math.sqrt(lambda) + 20);
+        for (int j = 0; j <= limit; j++)
+        {
+            if (j > 0)
+                poisson *= lambda / j;
+            probability += poisson * Math.pow(1 - Math.pow(63.0 / 64.0, j * k), k);
+        }
+        return probability;
+    }
+
+    // String.hashCode() is weak in its low bits for short words, so it is spread over 64 bits first (murmur3 fmix64).
+    private static long mix(int hash)
+    {
+        long z = hash;
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private int word(long z)
+    {
+        return (int)(((z >>> 32) * bits.length) >>> 32);
+    }
+
+    private long mask(int low)
+    {
+        long mask = 0;
+        for (int i = 0; i < k; i++)
+            mask |= 1L << ((low * SALT[i]) >>> 26);
+        return mask;
+    }
+
+    // False if no corpus word has this String.hashCode(), true if one may have it.
+    public boolean mightContain(int hash)
+    {
+        long z = mix(hash);
+        long mask = mask((int)z);
+        boolean maybe = (bits[word(z)] & mask) == mask;
+        if (metrics.ENABLED)
+        {
+            probes.increment();
+            if (!maybe)
+                rejected.increment();
+        }
+        return maybe;
+    }
+
+    // Called when a candidate that passed the filter turns out not to be a corpus word.
+    void falsePositive()
+    {
+        if (metrics.ENABLED)
+            falsePositives.increment();
+    }
+
+    public long getProbes()
+    {
+        return probes.sum();
+    }
+
+    public long getRejected()
+    {
+        return rejected.sum();
+    }
+
+    public long getFalsePositives()
+    {
+        return falsePositives.sum();
+    }
+
+    // Of the candidates that are not corpus words, the share the filter answered without a frequencytable probe.
+    public double getRejectRate()
+    {
+        long rejected = getRejected(), misses = rejected + getFalsePositives();
+        return misses == 0 ? 0 : (double)rejected / misses;
+    }
+
+    public double getExpectedFalsePositiveRate()
+    {
+        return falsePositiveProbability(keys, bits.length, k);
+    }
+
+    public int getKeys()
+    {
+        return keys;
+    }
+
+    public int getBytes()
+    {
+        return 8 * bits.length;
+    }
+
+    public int getBitsPerKey()
+    {
+        return (int)(64L * bits.length / keys);
+    }
+
+    public int getK()
+    {
+        return k;
+    }
+
+    public void reset()
+    {
+        probes.reset();
+        rejected.reset();
+        falsePositives.reset();
+    }
+
+    public String toString()
+    {
+        return "prefilter: " + getBytes() / 1024 + " KB for " + keys + " words, " + getBitsPerKey() + " bits a word, k "
+             + k + ", " + String.format("%.2f%%", 100 * getExpectedFalsePositiveRate()) + " false positives expected; "
+             + getProbes() + " probes, " + getRejected() + " rejected, " + getFalsePositives() + " false positives";
+    }
+
+    /*
+      java candidatefilter [corpus [words]]: the distance 2 candidate probes of words misspellings of corpus words
+      (one letter replaced), against the frequencytable alone and behind filters of several budgets, with the share
+      of non-words each filter rejected and the share it let through.
+    */
+    public static void main(String [] args) throws IOException
+    {
+        String file = args.length > 0 ? args[0] : "wordprobabilityDatabase.txt";
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        frequencytable table = new frequencytable(new parallelcounter(file).count());
+        System.out.println(table.size() + " corpus words");
+
+        Random random = new Random(0x5eed);
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++)
+        {
+            String word = table.word(random.nextInt(table.size()));
+            int j = random.nextInt(word.length());
+            words[i] = word.substring(0, j) + (char)('a' + random.nextInt(26)) + word.substring(j + 1);
+        }
+        int[] budgets = { 0, 64, L2_KB, 1024 };
+        for (int round = 0; round < 3; round++)
+        {
+            for (int budget : budgets)
+            {
+                candidatefilter filter = of(table, budget);
+                long[] counts = new long[3];        // probes, rejected, false positives
+                long start = System.nanoTime();
+                long found = probeAll(table, filter, words, counts);
+                long elapsed = System.nanoTime() - start;
+                String line = (filter == null ? String.format("%5d KB, off: ", budget)
+                                              : String.format("%5d KB, k %d:", filter.getBytes() / 1024, filter.getK()))
+                            + String.format(" %6.1f M probes/s", counts[0] * 1e3 / elapsed);
+                if (filter != null)
+                {
+                    long misses = counts[0] - found;
+                    line += String.format(", %5.1f%% of non-words rejected, %5.2f%% let through (%.2f%% expected)",
+                                          100.0 * counts[1] / misses, 100.0 * counts[2] / misses,
+                                          100 * filter.getExpectedFalsePositiveRate());
+                }
+                System.out.println(line);
+            }
+        }
+    }
+
+    // Probes every distance 2 edit of every word as spellingsuggest does, and returns how many were corpus words.
+    private static long probeAll(frequencytable table, candidatefilter filter, String[] words, long[] counts)
+    {
+        editgenerator first = new editgenerator(), second = new editgenerator();
+        long found = 0;
+        for (String word : words)
+        {
+            for (first.reset(word, false); first.next(); )
+            {
+                for (second.reset(first.buffer(), 0, first.length(), false); second.next(); )
+                {
+                    counts[0]++;
+                    int hash = second.hash();
+                    if (filter != null && !filter.mightContain(hash))
+                    {
+                        counts[1]++;
+                        continue;
+                    }
+                    if (table.find(second.buffer(), 0, second.length(), hash) >= 0)
+                        found++;
+                    else if (filter != null)
+                        counts[2]++;
+                }
+            }
+        }
+        return found;
+    }
+}
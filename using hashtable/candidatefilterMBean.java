@@ -0,0 +1,23 @@
+// What candidatefilter publishes over JMX.
+public interface candidatefilterMBean {
+
+    long getProbes();
+
+    long getRejected();
+
+    long getFalsePositives();
+
+    double getRejectRate();
+
+    double getExpectedFalsePositiveRate();
+
+    int getKeys();
+
+    int getBytes();
+
+    int getBitsPerKey();
+
+    int getK();
+
+    void reset();
+}
@@ -0,0 +1,60 @@
+import java.util.concurrent.atomic.LongAdder;
+
+// How the words handed to spellingsuggest.correct() were resolved: known as they are, at distance 1, at distance 2 or more, or not at all.
+// Answers from the correction cache are counted like searched ones; only the latency histograms leave them out.
+public class correctionstats implements correctionstatsMBean {
+
+    private final LongAdder known = new LongAdder();
+    private final LongAdder distance1 = new LongAdder();
+    private final LongAdder distance2 = new LongAdder();
+    private final LongAdder none = new LongAdder();
+
+    void known()
+    {
+        known.increment();
+    }
+
+    void resolved(int distance)
+    {
+        (distance <= 1 ? distance1 : distance2).increment();
+    }
+
+    void noCorrection()
+    {
+        none.increment();
+    }
+
+    public long getKnown()
+    {
+        return known.sum();
+    }
+
+    public long getDistance1()
+    {
+        return distance1.sum();
+    }
+
+    public long getDistance2()
+    {
+        return distance2.sum();
+    }
+
+    public long getNoCorrection()
+    {
+        return none.sum();
+    }
+
+    public void reset()
+    {
+        known.reset();
+        distance1.reset();
+        distance2.reset();
+        none.reset();
+    }
+
+    public String toString()
+    {
+        return "corrections: " + getKnown() + " known, " + getDistance1() + " at distance 1, " + getDistance2()
+             + " at distance 2, " + getNoCorrection() + " not found";
+    }
+}
@@ -0,0 +1,360 @@
+import java.io.*;
+import java.util.*;
+
+/*
+  Minimized DAWG (directed acyclic word graph) holding the dictionary.
+  Words sharing a prefix share the path to it and words sharing a suffix share the tail after it, so the ~98,500 words
+  of dictionary.txt collapse to a few hundred kilobytes of plain arrays, where the Hashtable pays an Entry, a key String
+  and its char[] for every single word. It is built once with the incremental algorithm of Daciuk et al. over the sorted
+  word list, then frozen, so lookups read immutable arrays and need no locking.
+*/
+public class dawg implements wordset {
+
+    private static final int NONE = -1;
+
+    // State s owns edges firstEdge[s] .. firstEdge[s+1]-1, sorted by label. State 0 is the root.
+    private final int[] firstEdge;
+    private final char[] edgeLabel;
+    private final int[] edgeTarget;
+    private final boolean[] isFinal;
+    private final int size;
+
+    public dawg(Collection<String> words)
+    {
+        String[] sorted = words.toArray(new String[words.size()]);
+        Arrays.sort(sorted);
+
+        builder b = new builder();
+        String previous = null;
+        for (String word : sorted)
+        {
+            if (!word.equals(previous))
+            {
+                b.add(word);
+                previous = word;
+            }
+        }
+        node root = b.finish();
+
+        // Number the distinct states and lay their edges out contiguously.
+        IdentityHashMap<node, Integer> ids = new IdentityHashMap<node, Integer>();
+        ArrayList<node> order = new ArrayList<node>();
+        ids.put(root, 0);
+        order.add(root);
+        int edges = 0;
+        for (int i = 0; i < order.size(); i++)
+        {
+            node n = order.get(i);
+            edges += n.count;
+            for (int e = 0; e < n.count; e++)
+            {
+                if (!ids.containsKey(n.targets[e]))
+                {
+                    ids.put(n.targets[e], order.size());
+                    order.add(n.targets[e]);
+                }
+            }
+        }
+        firstEdge = new int[order.size() + 1];
+        edgeLabel = new char[edges];
+        edgeTarget = new int[edges];
+        isFinal = new boolean[order.size()];
+        int e = 0;
+        for (int s = 0; s < order.size(); s++)
+        {
+            node n = order.get(s);
+            firstEdge[s] = e;
+            isFinal[s] = n.isFinal;
+            for (int i = 0; i < n.count; i++, e++)
+            {
+                edgeLabel[e] = n.labels[i];
+                edgeTarget[e] = ids.get(n.targets[i]);
+            }
+        }
+        firstEdge[order.size()] = e;
+        size = b.words;
+    }
+
+    // Reads a whitespace separated word list, e.g. dictionary.txt, from its compiled snapshot when there is a fresh one.
+    public static dawg load(String file) throws IOException
+    {
+        snapshot compiled = snapshot.load(file, snapshot.DICTIONARY);
+        if (compiled != null)
+        {
+            return new dawg(Arrays.asList(compiled.words()));
+        }
+        ArrayList<String> words = new ArrayList<String>();
+        BufferedReader dictReader = new BufferedReader(new FileReader(file));
+        for (String line = dictReader.readLine(); line != null; line = dictReader.readLine())
+        {
+            for (String word : line.split("\\s"))
+            {
+                words.add(word);
+            }
+        }
+        dictReader.close();
+        return new dawg(words);
+    }
+
+    public int root()
+    {
+        return 0;
+    }
+
+    // Follows the edge labelled c out of state, returns -1 if there is none.
+    public int step(int state, char c)
+    {
+        int lo = firstEdge[state], hi = firstEdge[state + 1] - 1;
+        while (lo <= hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            char label = edgeLabel[mid];
+            if (label < c)
+            {
+                lo = mid + 1;
+            }
+            else if (label > c)
+            {
+                hi = mid - 1;
+            }
+            else
+            {
+                return edgeTarget[mid];
+            }
+        }
+        return NONE;
+    }
+
+    public boolean isFinal(int state)
+    {
+        return state != NONE && isFinal[state];
+    }
+
+    // Walks chars start..end-1 from state, returns the state reached or -1.
+    public int walk(int state, CharSequence s, int start, int end)
+    {
+        for (int i = start; i < end && state != NONE; i++)
+        {
+            state = step(state, s.charAt(i));
+        }
+        return state;
+    }
+
+    public boolean contains(String word)
+    {
+        return contains(word, 0, word.length());
+    }
+
+    public boolean contains(CharSequence s)
+    {
+        return contains(s, 0, s.length());
+    }
+
+    public boolean contains(CharSequence s, int start, int end)
+    {
+        return isFinal(walk(root(), s, start, end));
+    }
+
+    // Like contains(), but looks up s[start..end) lower cased char by char, without building the lower cased String.
+    public boolean containsLowerCase(CharSequence s, int start, int end)
+    {
+        int state = root();
+        for (int i = start; i < end && state != NONE; i++)
+        {
+            char c = s.charAt(i);
+            state = step(state, c < 128 ? (c >= 'A' && c <= 'Z' ? (char)(c + ('a' - 'A')) : c) : Character.toLowerCase(c));
+        }
+        return isFinal(state);
+    }
+
+    // Both lookups of wordset.containsLowerCase(text, start, prefixEnd, end) in one walk: the prefix is on the way.
+    public int containsLowerCase(CharSequence s, int start, int prefixEnd, int end)
+    {
+        int found = 0;
+        int state = root();
+        for (int i = start; state != NONE; i++)
+        {
+            if (i == prefixEnd && isFinal(state))
+                found |= PREFIX;
+            if (i == end)
+                return isFinal(state) ? found | WHOLE : found;
+            char c = s.charAt(i);
+            state = step(state, c < 128 ? (c >= 'A' && c <= 'Z' ? (char)(c + ('a' - 'A')) : c) : Character.toLowerCase(c));
+        }
+        return found;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int states()
+    {
+        return isFinal.length;
+    }
+
+    public int edges()
+    {
+        return edgeLabel.length;
+    }
+
+    // Mutable state used while building, equal to another one when both have the same finality and outgoing edges.
+    private static class node
+    {
+        boolean isFinal;
+        char[] labels = new char[1];
+        node[] targets = new node[1];
+        int count;
+        int hash;
+
+        void add(char c, node target)
+        {
+            if (count == labels.length)
+            {
+                labels = Arrays.copyOf(labels, count * 2);
+                targets = Arrays.copyOf(targets, count * 2);
+            }
+            labels[count] = c;
+            targets[count++] = target;
+        }
+
+        // Only called once all targets are registered, so targets are compared by identity.
+        public int hashCode()
+        {
+            if (hash == 0)
+            {
+                int h = isFinal ? 1 : 2;
+                for (int i = 0; i < count; i++)
+                {
+                    h = 31 * (31 * h + labels[i]) + System.identityHashCode(targets[i]);
+                }
+                hash = h;
+            }
+            return hash;
+        }
+
+        public boolean equals(Object o)
+        {
+            node other = (node)o;
+            if (isFinal != other.isFinal || count != other.count)
+            {
+                return false;
+            }
+            for (int i = 0; i < count; i++)
+            {
+                if (labels[i] != other.labels[i] || targets[i] != other.targets[i])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Incremental construction from sorted input: only the path of the previous word can still change.
+    private static class builder
+    {
+        final node root = new node();
+        final HashMap<node, node> register = new HashMap<node, node>();
+        final ArrayList<node> path = new ArrayList<node>();    // path.get(i) is reached by the first i+1 chars of the previous word
+        String previous = "";
+        int words;
+
+        void add(String word)
+        {
+            int common = 0;
+            while (common < word.length() && common < previous.length() && word.charAt(common) == previous.charAt(common))
+            {
+                common++;
+            }
+            minimize(common);
+
+            node current = common == 0 ? root : path.get(common - 1);
+            for (int i = common; i < word.length(); i++)
+            {
+                node next = new node();
+                current.add(word.charAt(i), next);
+                path.add(next);
+                current = next;
+            }
+            current.isFinal = true;
+            previous = word;
+            words++;
+        }
+
+        // Replaces the nodes of the previous word's path below depth 'depth' by their registered equivalents.
+        void minimize(int depth)
+        {
+            for (int i = path.size() - 1; i >= depth; i--)
+            {
+                node child = path.remove(i);
+                node parent = i == 0 ? root : path.get(i - 1);
+                node existing = register.get(child);
+                if (existing != null)
+                {
+                    parent.targets[parent.count - 1] = existing;
+                }
+                else
+                {
+                    register.put(child, child);
+                }
+            }
+        }
+
+        node finish()
+        {
+            minimize(0);
+            return root;
+        }
+    }
+
+    // Compares the heap taken by the dictionary as a Hashtable<String,String> and as a dawg.
+    public static void main(String [] args) throws IOException
+    {
+        String file = args.length > 0 ? args[0] : "dictionary.txt";
+
+        long before = usedMemory();
+        Hashtable<String,String> table = new Hashtable<String,String>();
+        BufferedReader dictReader = new BufferedReader(new FileReader(file));
+        for (String line = dictReader.readLine(); line != null; line = dictReader.readLine())
+        {
+            for (String word : line.split("\\s"))
+            {
+                table.put(word, word);
+            }
+        }
+        dictReader.close();
+        long tableBytes = usedMemory() - before;
+
+        before = usedMemory();
+        dawg graph = load(file);
+        long dawgBytes = usedMemory() - before;
+
+        System.out.println("Hashtable: " + table.size() + " words, " + tableBytes / 1024 + " KB");
+        System.out.println("DAWG:      " + graph.size() + " words, " + graph.states() + " states, " + graph.edges() + " edges, " + dawgBytes / 1024 + " KB");
+        System.out.println("Both agree on every word: " + graph.containsAll(table.keySet()));
+    }
+
+    private boolean containsAll(Collection<String> words)
+    {
+        for (String word : words)
+        {
+            if (!contains(word))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long usedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++)
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
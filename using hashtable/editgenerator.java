@@ -0,0 +1,283 @@
+/*
+  Enumerates the distance 1 edits of a word (deletions, transpositions, replacements, insertions, in the same order as
+  spellingsuggest used to build them with substring()) into one reusable char[] instead of a new String each.
+  Moving from one edit to the next changes one or two characters of the buffer, and the hash of each edit is worked out
+  in O(1) from the prefix and suffix hashes of the word. The hash is the String.hashCode() polynomial, so an edit can
+  be probed in a frequencytable, and compared with a String, without ever being turned into one.
+  Used like tokenizer: reset() to a word, then next() until it returns false. After the first few words nothing is
+  allocated any more.
+*/
+final class editgenerator {
+
+    private static final int DELETE = 0, TRANSPOSE = 1, REPLACE = 2, INSERT = 3, DONE = 4;
+
+    private char[] word = new char[32];
+    private char[] buf = new char[33];
+    private int[] prefix = new int[33];     // prefix[i]: hash of word[0, i)
+    private int[] suffix = new int[33];     // suffix[i]: hash of word[i, n)
+    private int[] pow = new int[34];        // pow[i]: 31^i
+    private int n;
+    private boolean distinct;
+
+    private int phase, i, len, hash;
+    private char c;
+
+    // Starts over on word; with distinct set, edits spelling the same string twice, or the word itself, are skipped.
+    public editgenerator reset(String word, boolean distinct)
+    {
+        ensureCapacity(word.length());
+        word.getChars(0, word.length(), this.word, 0);
+        return start(word.length(), distinct);
+    }
+
+    public editgenerator reset(char[] word, int offset, int length, boolean distinct)
+    {
+        ensureCapacity(length);
+        System.arraycopy(word, offset, this.word, 0, length);
+        return start(length, distinct);
+    }
+
+    private void ensureCapacity(int length)
+    {
+        if (length + 1 < buf.length)
+            return;
+        int capacity = Math.max(length + 2, buf.length * 2);
+        word = new char[capacity];
+        buf = new char[capacity];
+        prefix = new int[capacity];
+        suffix = new int[capacity];
+        pow = new int[capacity + 1];
+    }
+
+    private editgenerator start(int length, boolean distinct)
+    {
+        n = length;
+        this.distinct = distinct;
+        pow[0] = 1;
+        for (int j = 1; j <= n + 1; j++)
+            pow[j] = pow[j - 1] * 31;
+        prefix[0] = 0;
+        for (int j = 0; j < n; j++)
+            prefix[j + 1] = prefix[j] * 31 + word[j];
+        suffix[n] = 0;
+        for (int j = n - 1; j >= 0; j--)
+            suffix[j] = word[j] * pow[n - 1 - j] + suffix[j + 1];
+        phase = DELETE;
+        i = -1;
+        return this;
+    }
+
+    // Moves to the next edit; false once they are all done.
+    public boolean next()
+    {
+        while (true)
+        {
+            switch (phase)
+            {
+            case DELETE:
+                // buf holds the word without word[i]
+                if (i < 0)
+                {
+                    System.arraycopy(word, 1, buf, 0, Math.max(0, n - 1));
+                    i = 0;
+                }
+                else
+                {
+                    buf[i] = word[i];
+                    i++;
+                }
+                if (i >= n)
+                {
+                    enter(TRANSPOSE);
+                    continue;
+                }
+                if (distinct && i + 1 < n && word[i] == word[i + 1])
+                    continue;       // the same as deleting the last of the run
+                len = n - 1;
+                hash = prefix[i] * pow[n - i - 1] + suffix[i + 1];
+                return true;
+
+            case TRANSPOSE:
+                // buf holds the word with word[i] and word[i + 1] swapped
+                if (i < 0)
+                {
+                    System.arraycopy(word, 0, buf, 0, n);
+                    i = 0;
+                }
+                else
+                {
+                    buf[i] = word[i];
+                    buf[i + 1] = word[i + 1];
+                    i++;
+                }
+                if (i >= n - 1)
+                {
+                    enter(REPLACE);
+                    continue;
+                }
+                if (distinct && word[i] == word[i + 1])
+                    continue;
+                buf[i] = word[i + 1];
+                buf[i + 1] = word[i];
+                len = n;
+                hash = prefix[i] * pow[n - i] + word[i + 1] * pow[n - i - 1] + word[i] * pow[n - i - 2] + suffix[i + 2];
+                return true;
+
+            case REPLACE:
+                // buf holds the word with word[i] replaced by c
+                if (i < 0)
+                {
+                    System.arraycopy(word, 0, buf, 0, n);
+                    i = 0;
+                    c = 'a';
+                }
+                else if (++c > 'z')
+                {
+                    buf[i] = word[i];
+                    i++;
+                    c = 'a';
+                }
+                if (i >= n)
+                {
+                    enter(INSERT);
+                    continue;
+                }
+                if (distinct && c == word[i])
+                    continue;
+                buf[i] = c;
+                len = n;
+                hash = prefix[i] * pow[n - i] + c * pow[n - i - 1] + suffix[i + 1];
+                return true;
+
+            case INSERT:
+                // buf holds the word with c inserted before word[i]
+                if (i < 0)
+                {
+                    System.arraycopy(word, 0, buf, 1, n);
+                    i = 0;
+                    c = 'a';
+                }
+                else if (++c > 'z')
+                {
+                    if (i < n)
+                        buf[i] = word[i];
+                    i++;
+                    c = 'a';
+                }
+                if (i > n)
+                {
+                    phase = DONE;
+                    return false;
+                }
+                if (distinct && i < n && c == word[i])
+                    continue;       // the same as inserting it after word[i]
+                buf[i] = c;
+                len = n + 1;
+                hash = prefix[i] * pow[n - i + 1] + c * pow[n - i] + suffix[i];
+                return true;
+
+            default:
+                return false;
+            }
+        }
+    }
+
+    private void enter(int next)
+    {
+        phase = next;
+        i = -1;
+    }
+
+    // The current edit is buffer()[0, length()), valid until the next call to next() or reset().
+    public char[] buffer()
+    {
+        return buf;
+    }
+
+    public int length()
+    {
+        return len;
+    }
+
+    // Equal to new String(buffer(), 0, length()).hashCode().
+    public int hash()
+    {
+        return hash;
+    }
+
+    /*
+      Where the last of the edits of word (distance 1), or of the edits of those edits (distance 2), spelling candidate
+      comes in the order next() spells them without distinct, -1 if none does. Of equally frequent words
+      spellingsuggest.correct() keeps the one spelt last, and the backends that find them otherwise rank ties by this.
+      Worked out edit by edit for distance 1 and from the first edits of word for distance 2, so that costs about
+      54 n checks of a few characters rather than the (54 n)^2 edits.
+    */
+    static long order(String word, String candidate, int distance)
+    {
+        if (distance == 1)
+            return last(word.toCharArray(), word.length(), candidate);
+        long order = -1;
+        if (distance != 2)
+            return order;
+        editgenerator edits = new editgenerator().reset(word, false);
+        for (long first = 0; edits.next(); first++)
+        {
+            int second = last(edits.buffer(), edits.length(), candidate);
+            if (second >= 0)
+                order = first << 32 | second;
+        }
+        return order;
+    }
+
+    // The index of the last edit of word[0, n) spelling candidate among the deletions, transpositions, replacements
+    // and insertions next() goes through, -1 if none does.
+    private static int last(char[] word, int n, String candidate)
+    {
+        int m = candidate.length();
+        if (m < n - 1 || m > n + 1)
+            return -1;
+        int prefix = 0, suffix = 0;
+        while (prefix < Math.min(n, m) && word[prefix] == candidate.charAt(prefix))
+            prefix++;
+        while (suffix < Math.min(n, m) && word[n - 1 - suffix] == candidate.charAt(m - 1 - suffix))
+            suffix++;
+        int transposes = n, replaces = transposes + Math.max(0, n - 1), inserts = replaces + 26 * n;
+        if (m == n - 1)
+        {
+            // deleting any of word[n - 1 - suffix, prefix] spells it, the last of them comes last
+            return prefix >= n - 1 - suffix ? prefix : -1;
+        }
+        if (m == n + 1)
+        {
+            // inserting candidate[i] at any i in [n - suffix, prefix], and only a letter is ever inserted
+            for (int i = prefix; i >= n - suffix; i--)
+            {
+                char c = candidate.charAt(i);
+                if (c >= 'a' && c <= 'z')
+                    return inserts + 26 * i + c - 'a';
+            }
+            return -1;
+        }
+        if (prefix == n)
+        {
+            // the word itself, respelt by replacing a letter with itself or swapping two equal ones
+            for (int i = n - 1; i >= 0; i--)
+            {
+                if (word[i] >= 'a' && word[i] <= 'z')
+                    return replaces + 26 * i + word[i] - 'a';
+            }
+            for (int i = n - 2; i >= 0; i--)
+            {
+                if (word[i] == word[i + 1])
+                    return transposes + i;
+            }
+            return -1;
+        }
+        char c = candidate.charAt(prefix);
+        if (prefix + suffix == n - 1 && c >= 'a' && c <= 'z')
+            return replaces + 26 * prefix + c - 'a';
+        if (prefix + suffix == n - 2 && word[prefix] == candidate.charAt(prefix + 1) && word[prefix + 1] == c)
+            return transposes + prefix;
+        return -1;
+    }
+}
@@ -0,0 +1,191 @@
+import java.io.*;
+import java.util.*;
+
+/*
+  Read-only word -> count table for the frequency corpus, in a handful of primitive arrays instead of a
+  HashMap<String, Integer>, which pays for a node, a String, its array and a boxed Integer on every word.
+  Entries are numbered 0 .. size() - 1; their characters sit back to back in one byte array (corpus words are \w+,
+  so one byte per character), with an int offset, count and hash next to them. The open addressing index holds
+  entry + 1 (0 for a free slot) and is probed linearly, comparing characters only when the full hashes agree.
+  frequencyOf() answers "is it known" and "how often" in one probe. The hash is String.hashCode(), so editgenerator
+  candidates can be looked up from a slice of a char[] without being turned into Strings.
+*/
+final class frequencytable {
+
+    static final int ABSENT = -1;
+
+    private final byte[] bytes;
+    private final int[] start;          // entry i is bytes[start[i], start[i + 1])
+    private final int[] counts;
+    private final int[] hashes;
+    private final int[] index;
+    private final int shift;
+
+    public frequencytable(Map<String, Integer> words)
+    {
+        this(words.keySet().toArray(new String[words.size()]), counts(words), words.size());
+    }
+
+    // The counts in the order of words.keySet(); keys and values of a map are iterated in the same order.
+    private static int[] counts(Map<String, Integer> words)
+    {
+        int[] counts = new int[words.size()];
+        int i = 0;
+        for (Integer count : words.values())
+            counts[i++] = count;
+        return counts;
+    }
+
+    // The first size words and their counts, as kept by a snapshot.
+    public frequencytable(String[] words, int[] counts, int size)
+    {
+        int length = 0;
+        for (int i = 0; i < size; i++)
+            length += words[i].length();
+        bytes = new byte[length];
+        start = new int[size + 1];
+        this.counts = new int[size];
+        hashes = new int[size];
+
+        int bits = 1;
+        while ((1 << bits) < size + size / 2)     // at most two thirds full
+            bits++;
+        index = new int[1 << bits];
+        shift = 32 - bits;
+
+        int offset = 0;
+        for (int entry = 0; entry < size; entry++)
+        {
+            String word = words[entry];
+            start[entry] = offset;
+            for (int j = 0; j < word.length(); j++)
+            {
+                char c = word.charAt(j);
+                if (c > 0xFF)
+                    throw new IllegalArgumentException("not a corpus word: " + word);
+                bytes[offset++] = (byte)c;
+            }
+            this.counts[entry] = counts[entry];
+            hashes[entry] = word.hashCode();
+            int slot = slot(hashes[entry]);
+            while (index[slot] != 0)
+                slot = (slot + 1) & (index.length - 1);
+            index[slot] = entry + 1;
+        }
+        start[size] = offset;
+    }
+
+    private int slot(int hash)
+    {
+        return (hash * 0x9E3779B9) >>> shift;
+    }
+
+    // The entry spelling s[offset, offset + length), whose String.hashCode() is hash, or -1.
+    public int find(char[] s, int offset, int length, int hash)
+    {
+        for (int slot = slot(hash); index[slot] != 0; slot = (slot + 1) & (index.length - 1))
+        {
+            int entry = index[slot] - 1;
+            if (hashes[entry] != hash || start[entry + 1] - start[entry] != length)
+                continue;
+            int p = start[entry], j = 0;
+            while (j < length && (bytes[p + j] & 0xFF) == s[offset + j])
+                j++;
+            if (j == length)
+                return entry;
+        }
+        return -1;
+    }
+
+    public int find(String word)
+    {
+        int hash = word.hashCode(), length = word.length();
+        for (int slot = slot(hash); index[slot] != 0; slot = (slot + 1) & (index.length - 1))
+        {
+            int entry = index[slot] - 1;
+            if (hashes[entry] != hash || start[entry + 1] - start[entry] != length)
+                continue;
+            int p = start[entry], j = 0;
+            while (j < length && (bytes[p + j] & 0xFF) == word.charAt(j))
+                j++;
+            if (j == length)
+                return entry;
+        }
+        return -1;
+    }
+
+    // The count of word, or ABSENT if it is not in the corpus.
+    public int frequencyOf(String word)
+    {
+        int entry = find(word);
+        return entry < 0 ? ABSENT : counts[entry];
+    }
+
+    public int frequencyOf(char[] s, int offset, int length, int hash)
+    {
+        int entry = find(s, offset, length, hash);
+        return entry < 0 ? ABSENT : counts[entry];
+    }
+
+    public int count(int entry)
+    {
+        return counts[entry];
+    }
+
+    // The String.hashCode() of the word of entry.
+    public int hash(int entry)
+    {
+        return hashes[entry];
+    }
+
+    public String word(int entry)
+    {
+        int length = start[entry + 1] - start[entry];
+        char[] chars = new char[length];
+        for (int j = 0; j < length; j++)
+            chars[j] = (char)(bytes[start[entry] + j] & 0xFF);
+        return new String(chars);
+    }
+
+    public int size()
+    {
+        return counts.length;
+    }
+
+    // java frequencytable [corpus]: memory of the table against the HashMap it replaces.
+    public static void main(String [] args) throws IOException
+    {
+        String file = args.length > 0 ? args[0] : "wordprobabilityDatabase.txt";
+        HashMap<String, Integer> counted = new parallelcounter(file).count();
+        String[] words = counted.keySet().toArray(new String[counted.size()]);
+        int[] counts = counts(counted);
+        counted = null;
+
+        long before = usedMemory();
+        HashMap<String, Integer> map = new HashMap<String, Integer>();
+        for (int i = 0; i < words.length; i++)
+            map.put(new String(words[i].toCharArray()), counts[i]);
+        long mapBytes = usedMemory() - before;
+
+        before = usedMemory();
+        frequencytable table = new frequencytable(words, counts, words.length);
+        long tableBytes = usedMemory() - before;
+
+        boolean agree = true;
+        for (Map.Entry<String, Integer> e : map.entrySet())
+            agree &= table.frequencyOf(e.getKey()) == e.getValue();
+        System.out.println("HashMap:        " + map.size() + " words, " + mapBytes / 1024 + " KB");
+        System.out.println("frequencytable: " + table.size() + " words, " + tableBytes / 1024 + " KB");
+        System.out.println("Both agree on every word: " + agree);
+    }
+
+    private static long usedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++)
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
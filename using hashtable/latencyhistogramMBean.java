@@ -0,0 +1,19 @@
+// What a latencyhistogram publishes over JMX, all times in nanoseconds.
+public interface latencyhistogramMBean {
+
+    long getCount();
+
+    double getMean();
+
+    long getP50();
+
+    long getP90();
+
+    long getP99();
+
+    long getP999();
+
+    long getMax();
+
+    void reset();
+}
@@ -0,0 +1,145 @@
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/*
+  Checks an input file of any size through memory mapped windows of its bytes instead of a Reader: no charset
+  decoding, no line Strings, no split() and no toLowerCase() copies, and the memory used does not grow with the file. tokenizer runs straight over the bytes (see
+  bytetext), and ASCII tokens, nearly every token of English text, are looked up in place, lower cased as the
+  dictionary is walked. Only a token with a byte above 127 is decoded, from UTF-8 and on its own, and checked as a
+  String. Misspellings are reported with the byte offset of their token in the file; a correctly spelt word costs
+  no allocation at all.
+*/
+final class mappedcheck {
+
+    static final int WINDOW = 4 << 20;      // bytes mapped at a time
+
+    // Receives the misspellings in file order.
+    interface listener
+    {
+        void misspelt(long offset, String token, String word, String previous) throws IOException;
+    }
+
+    private final spellengine engine;
+    private long tokens;
+    private long misspelt;
+
+    mappedcheck(spellengine engine)
+    {
+        this.engine = engine;
+    }
+
+    /*
+      Hands every misspelt word of file to found, with the word before it, and returns the number of bytes checked.
+      A token running into the end of a window is left to the next window, which starts at it, unless it fills the
+      whole window; such a token is cut in two.
+    */
+    public long check(String file, listener found) throws IOException
+    {
+        FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+        try
+        {
+            long size = channel.size();
+            bytetext text = new bytetext();
+            tokenizer words = new tokenizer(text);
+            tokenizer decoded = new tokenizer("");
+            int previousStart = 0, previousEnd = 0;     // the word before, while it is ASCII and in this window
+            String previous = null;                     // else the word before, decoded
+            for (long base = 0; base < size; )
+            {
+                int length = (int)Math.min(WINDOW, size - base);
+                boolean last = base + length == size;
+                text.reset(channel.map(FileChannel.MapMode.READ_ONLY, base, length));
+                words.reset(text);
+                int next = length;
+                while (words.next())
+                {
+                    if (!last && words.offset() > 0 && words.offset() + words.length() == length)
+                    {
+                        next = words.offset();          // it may go on in the next window
+                        break;
+                    }
+                    tokens++;
+                    tokenizer word = words;
+                    if (!words.isAscii())
+                    {
+                        decoded.reset(text.decode(words.offset(), words.offset() + words.length()));
+                        decoded.next();                 // whitespace is ASCII, so the decoded token is one token
+                        word = decoded;
+                    }
+                    if (!engine.isKnown(word))
+                    {
+                        misspelt++;
+                        found.misspelt(base + words.offset(), word.token(), word.normalized(),
+                            previous != null || previousEnd == previousStart ? previous : text.decode(previousStart, previousEnd).toLowerCase());
+                    }
+                    if (word.wordLength() == 0)
+                        continue;
+                    if (word == words)
+                    {
+                        previousStart = words.wordOffset();
+                        previousEnd = previousStart + words.wordLength();
+                        previous = null;
+                    }
+                    else
+                    {
+                        previous = decoded.normalized();
+                    }
+                }
+                if (previous == null && previousEnd > previousStart)
+                    previous = text.decode(previousStart, previousEnd).toLowerCase();
+                previousStart = previousEnd = 0;
+                base += next;
+            }
+            return size;
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    public long tokens()
+    {
+        return tokens;
+    }
+
+    public long misspelt()
+    {
+        return misspelt;
+    }
+
+    // java mappedcheck <file>: prints  <byte offset> <token> <correction>  for every misspelt word of file.
+    public static void main(String [] args) throws IOException
+    {
+        if (args.length == 0)
+        {
+            System.err.println("usage: java mappedcheck <file>");
+            return;
+        }
+        hotswap engines = spellchecker.engines();
+        final hotswap.generation g = engines.acquire();
+        try
+        {
+            final Writer out = new BufferedWriter(new OutputStreamWriter(System.out, "UTF-8"), 1 << 16);
+            mappedcheck checker = new mappedcheck(g.engine());
+            long start = System.nanoTime();
+            long bytes = checker.check(args[0], new listener() {
+                public void misspelt(long offset, String token, String word, String previous) throws IOException
+                {
+                    out.append(Long.toString(offset)).append('\t').append(token).append('\t')
+                       .append(g.engine().correct(word, previous)).append('\n');
+                }
+            });
+            out.flush();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.err.println(bytes + " bytes, " + checker.tokens() + " tokens, " + checker.misspelt() + " misspelt, in "
+                             + String.format("%.2f s, %.0f MB/s", seconds, bytes / seconds / (1 << 20)));
+        }
+        finally
+        {
+            engines.release(g);
+            engines.close();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+import java.lang.management.ManagementFactory;
+import javax.management.*;
+
+/*
+  Per-stage latency histograms and correction counters, published as MBeans under the "spellchecker" domain.
+  Off unless the JVM runs with -Dspellchecker.metrics=true. Every probe in the code sits behind ENABLED, a static
+  final the JIT treats as a constant, so with metrics off the probes, nanoTime() calls included, are compiled out and
+  none of the histograms below is even allocated.
+*/
+final class metrics {
+
+    static final boolean ENABLED = Boolean.getBoolean("spellchecker.metrics");
+
+    static final latencyhistogram LOOKUP = histogram("lookup");                 // first dictionary probe of a word
+    static final latencyhistogram PUNCTUATION = histogram("punctuation");       // retries with punctuation stripped
+    static final latencyhistogram DISTANCE1 = histogram("correct.distance1");   // correct() searches resolved at distance 1
+    static final latencyhistogram DISTANCE2 = histogram("correct.distance2");   // correct() searches resolved at distance 2
+    static final latencyhistogram NO_CORRECTION = histogram("correct.none");    // correct() searches that found nothing
+    static final latencyhistogram BLOOM_HASH = histogram("bloom.hash");         // hashing a word into its k bit indices
+    static final correctionstats CORRECTIONS = ENABLED ? new correctionstats() : null;    // every answer, cache hits too
+
+    static
+    {
+        if (ENABLED)
+            register("type=Corrections", CORRECTIONS);
+    }
+
+    private metrics()
+    {
+    }
+
+    private static latencyhistogram histogram(String stage)
+    {
+        if (!ENABLED)
+            return null;
+        latencyhistogram histogram = new latencyhistogram(stage);
+        register("type=Latency,stage=" + stage, histogram);
+        return histogram;
+    }
+
+    // Publishes mbean as spellchecker:<properties>; a failure is reported and otherwise ignored.
+    static void register(String properties, Object mbean)
+    {
+        try
+        {
+            ObjectName name = new ObjectName("spellchecker:" + properties);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+            server.registerMBean(mbean, name);
+        }
+        catch (JMException e)
+        {
+            System.err.println("Could not publish metrics " + properties + ": " + e.getMessage());
+        }
+    }
+
+    // Everything recorded so far, one line per stage, for a run without a JMX console.
+    static String report()
+    {
+        if (!ENABLED)
+            return "metrics are off, run with -Dspellchecker.metrics=true";
+        StringBuilder report = new StringBuilder();
+        for (latencyhistogram h : new latencyhistogram[] { LOOKUP, PUNCTUATION, DISTANCE1, DISTANCE2, NO_CORRECTION, BLOOM_HASH })
+            report.append(h).append('\n');
+        return report.append(CORRECTIONS).toString();
+    }
+}
@@ -0,0 +1,301 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+  Builds the spellingsuggest word counts of a corpus on all cores.
+  The file is cut into chunks at whitespace, each chunk is memory-mapped, decoded, lower cased and scanned for \w+
+  tokens into its own map on the fork-join pool, and the chunk maps are merged pairwise. Whitespace never belongs to a
+  token, so the counts are identical to the single threaded spellingsuggest.countWords().
+  Both decode with the platform charset, and the cuts are made at whitespace bytes before decoding: that is only
+  safe for a charset encoding whitespace as its single ASCII byte, which never turns up inside another character,
+  such as UTF-8, ISO-8859-* or windows-125*. A UTF-16 corpus, or one in any other charset than the platform's, has
+  to be converted first.
+  Counting goes through a mutable int[1] per word, i.e. one hash probe and no boxing per token.
+  Asked to, the same pass also counts which token follows which for bigrammodel: each chunk numbers its words as it
+  meets them and counts its distinct pairs of consecutive tokens by those numbers, and bigrams() maps them to
+  frequencytable entries once the counts are merged, adding the pair across each chunk bound. The bigrams are then
+  built from the very tokens counted, lower cased by String.toLowerCase() like the counts.
+*/
+class parallelcounter {
+
+    static final int CHUNK_SIZE = 16 << 20;    // bytes handed to one task
+
+    private final String file;
+    private final boolean pairs;
+    private chunkpairs[] chunks;        // what each chunk of the last count() saw, when pairs are recorded
+    private long bytes;
+    private long nanos;
+
+    public parallelcounter(String file)
+    {
+        this(file, false);
+    }
+
+    // With pairs, count() also counts the pairs of consecutive tokens of the corpus for bigrams().
+    public parallelcounter(String file, boolean pairs)
+    {
+        this.file = file;
+        this.pairs = pairs;
+    }
+
+    // The pairs of consecutive tokens of one chunk, by the order its words were first met in it.
+    private static final class chunkpairs
+    {
+        final ArrayList<String> words = new ArrayList<String>();
+        final bigrammodel.pairtable seen = new bigrammodel.pairtable();
+        int first = -1, last = -1;          // the chunk's first and last tokens, -1 if it has none
+
+        void add(int word)
+        {
+            if (last >= 0)
+            {
+                seen.add(bigrammodel.pair(last, word), 1);
+            }
+            else
+            {
+                first = word;
+            }
+            last = word;
+        }
+    }
+
+    public HashMap<String, Integer> count() throws IOException
+    {
+        long start = System.nanoTime();
+        FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+        try
+        {
+            bytes = channel.size();
+            long[] bounds = chunkBounds(channel, bytes);
+            chunks = pairs ? new chunkpairs[bounds.length - 1] : null;
+            HashMap<String, int[]> counts;
+            try
+            {
+                counts = ForkJoinPool.commonPool().invoke(new chunktask(channel, bounds, chunks, 0, bounds.length - 1));
+            }
+            catch (UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+
+            HashMap<String, Integer> DBWords = new HashMap<String, Integer>(counts.size() * 4 / 3 + 1);
+            for (Map.Entry<String, int[]> e : counts.entrySet())
+            {
+                DBWords.put(e.getKey(), e.getValue()[0]);
+            }
+            return DBWords;
+        }
+        finally
+        {
+            channel.close();
+            nanos = System.nanoTime() - start;
+        }
+    }
+
+    /*
+      The bigram model of the tokens the last count() saw, over words, the frequencytable of its counts; null unless
+      this counter records pairs.
+    */
+    public bigrammodel bigrams(frequencytable words)
+    {
+        if (chunks == null)
+            return null;
+        bigrammodel.pairtable seen = new bigrammodel.pairtable();
+        int last = -1;
+        for (chunkpairs chunk : chunks)
+        {
+            int[] entries = new int[chunk.words.size()];
+            for (int i = 0; i < entries.length; i++)
+                entries[i] = words.find(chunk.words.get(i));
+            if (last >= 0 && chunk.first >= 0)
+                seen.add(bigrammodel.pair(last, entries[chunk.first]), 1);
+            seen.addAll(chunk.seen, entries);
+            if (chunk.last >= 0)
+                last = entries[chunk.last];
+        }
+        long tokens = 0;
+        for (int entry = 0; entry < words.size(); entry++)
+            tokens += words.count(entry);
+        return new bigrammodel(seen, tokens);
+    }
+
+    // Throughput of the last count() in MB/s.
+    public double throughput()
+    {
+        return nanos == 0 ? 0 : (bytes / (1024.0 * 1024.0)) / (nanos / 1e9);
+    }
+
+    // Chunk i is [bounds[i], bounds[i+1]); every inner bound is moved forward to just past a whitespace byte.
+    private static long[] chunkBounds(FileChannel channel, long size) throws IOException
+    {
+        ArrayList<Long> bounds = new ArrayList<Long>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long position = CHUNK_SIZE;
+        while (position < size)
+        {
+            long bound = -1;
+            while (bound < 0 && position < size)
+            {
+                probe.clear();
+                int read = channel.read(probe, position);
+                for (int i = 0; i < read; i++)
+                {
+                    if (isWhitespace(probe.get(i)))
+                    {
+                        bound = position + i + 1;
+                        break;
+                    }
+                }
+                if (read <= 0)
+                    break;
+                if (bound < 0)
+                    position += read;
+            }
+            if (bound < 0 || bound >= size)
+                break;
+            bounds.add(bound);
+            position = bound + CHUNK_SIZE;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = bounds.get(i);
+        return result;
+    }
+
+    // The bytes matched by \s; in UTF-8 they never occur inside a multi-byte character, in UTF-16 they do.
+    private static boolean isWhitespace(byte b)
+    {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == 0x0B || b == '\f';
+    }
+
+    private static boolean isWordChar(char c)   // \w without UNICODE_CHARACTER_CLASS
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    // The counts of the tokens of [from, to), and their pairs into chunk if it is not null.
+    private static HashMap<String, int[]> countChunk(FileChannel channel, long from, long to, chunkpairs chunk) throws IOException
+    {
+        HashMap<String, int[]> counts = new HashMap<String, int[]>();
+        if (to <= from)
+            return counts;
+        // FileReader decodes with the platform charset, and so does this; see the header for which ones the chunks suit.
+        CharBuffer chars = Charset.defaultCharset().decode(channel.map(FileChannel.MapMode.READ_ONLY, from, to - from));
+        String text = chars.toString().toLowerCase();
+        int length = text.length();
+        for (int i = 0; i < length; )
+        {
+            if (!isWordChar(text.charAt(i)))
+            {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && isWordChar(text.charAt(i)))
+                i++;
+            String word = text.substring(start, i);
+            int[] count = counts.get(word);
+            if (count == null)
+            {
+                // the second int numbers the word within its chunk for the pairs; merge() only adds up the first
+                counts.put(word, count = new int[chunk == null ? 1 : 2]);
+                if (chunk != null)
+                {
+                    count[1] = chunk.words.size();
+                    chunk.words.add(word);
+                }
+            }
+            count[0]++;
+            if (chunk != null)
+                chunk.add(count[1]);
+        }
+        return counts;
+    }
+
+    private static class chunktask extends RecursiveTask<HashMap<String, int[]>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final chunkpairs[] chunks;  // where each chunk leaves its pairs, null if they are not recorded
+        private final int first, last;      // chunks first .. last-1
+
+        chunktask(FileChannel channel, long[] bounds, chunkpairs[] chunks, int first, int last)
+        {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.chunks = chunks;
+            this.first = first;
+            this.last = last;
+        }
+
+        protected HashMap<String, int[]> compute()
+        {
+            if (last - first <= 1)
+            {
+                try
+                {
+                    if (chunks != null)
+                        chunks[first] = new chunkpairs();
+                    return countChunk(channel, bounds[first], bounds[last], chunks != null ? chunks[first] : null);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int middle = (first + last) >>> 1;
+            chunktask left = new chunktask(channel, bounds, chunks, first, middle);
+            left.fork();
+            HashMap<String, int[]> right = new chunktask(channel, bounds, chunks, middle, last).compute();
+            return merge(left.join(), right);
+        }
+
+        private static HashMap<String, int[]> merge(HashMap<String, int[]> a, HashMap<String, int[]> b)
+        {
+            if (a.size() < b.size())
+            {
+                HashMap<String, int[]> t = a;
+                a = b;
+                b = t;
+            }
+            for (Map.Entry<String, int[]> e : b.entrySet())
+            {
+                int[] count = a.get(e.getKey());
+                if (count == null)
+                    a.put(e.getKey(), e.getValue());
+                else
+                    count[0] += e.getValue()[0];
+            }
+            return a;
+        }
+    }
+
+    // Counts a corpus both ways, checks the results agree and reports the throughput of each.
+    public static void main(String [] args) throws IOException
+    {
+        String file = args.length > 0 ? args[0] : "wordprobabilityDatabase.txt";
+        double megabytes = new File(file).length() / (1024.0 * 1024.0);
+
+        long start = System.nanoTime();
+        HashMap<String, Integer> single = spellingsuggest.countWords(file);
+        double singleSeconds = (System.nanoTime() - start) / 1e9;
+
+        parallelcounter counter = new parallelcounter(file);
+        HashMap<String, Integer> parallel = counter.count();
+
+        System.out.printf("single threaded: %.1f MB/s%n", megabytes / singleSeconds);
+        System.out.printf("parallel (%d threads): %.1f MB/s%n", ForkJoinPool.commonPool().getParallelism(), counter.throughput());
+        System.out.println(parallel.equals(single) ? "counts identical (" + single.size() + " words)" : "COUNTS DIFFER");
+    }
+}
@@ -0,0 +1,129 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+  Checks a document on several cores while keeping the output in input order.
+  A reader thread cuts the input into batches of lines and submits each batch to a pool of workers, which check the
+  lines and compute the suggestions. The future of every batch goes into a bounded queue in submission order, and the
+  calling thread, acting as the writer, takes them from that queue and prints each one as soon as it is done, so a slow
+  distance-2 miss holds up the output of its own batch only, not the checking of the following ones.
+  Once the queue is full the reader blocks, so at most queueCapacity + 1 batches are ever held in memory.
+*/
+class pipeline {
+
+    static final int BATCH_SIZE = 64;           // lines per batch
+    static final int QUEUE_FACTOR = 4;          // batches in flight per worker
+
+    private final spellchecker checker;
+    private final int workers;
+    private final int batchSize;
+    private final int queueCapacity;
+
+    public pipeline(spellchecker checker, int workers)
+    {
+        this(checker, workers, BATCH_SIZE, workers * QUEUE_FACTOR);
+    }
+
+    public pipeline(spellchecker checker, int workers, int batchSize, int queueCapacity)
+    {
+        this.checker = checker;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    // Checks every line of in and writes the result to out in the original line order.
+    public void run(final BufferedReader in, PrintStream out) throws IOException, InterruptedException
+    {
+        final ExecutorService pool = Executors.newFixedThreadPool(workers);
+        final BlockingQueue<Future<String>> ordered = new ArrayBlockingQueue<Future<String>>(queueCapacity);
+        final FutureTask<String> end = new FutureTask<String>(new Callable<String>() {
+            public String call() { return null; }
+        });
+        end.run();
+        final IOException[] readError = new IOException[1];
+
+        Thread reader = new Thread("spellchecker-reader") {
+            public void run()
+            {
+                try
+                {
+                    ArrayList<String> batch = new ArrayList<String>(batchSize);
+                    for (String line = in.readLine(); line != null; line = in.readLine())
+                    {
+                        batch.add(line);
+                        if (batch.size() == batchSize)
+                        {
+                            ordered.put(pool.submit(new check(batch)));
+                            batch = new ArrayList<String>(batchSize);
+                        }
+                    }
+                    if (!batch.isEmpty())
+                        ordered.put(pool.submit(new check(batch)));
+                }
+                catch (IOException e)
+                {
+                    readError[0] = e;
+                }
+                catch (InterruptedException e)
+                {
+                    return;     // the writer gave up
+                }
+                try
+                {
+                    ordered.put(end);
+                }
+                catch (InterruptedException e)
+                {
+                }
+            }
+        };
+        reader.start();
+
+        try
+        {
+            for (Future<String> next = ordered.take(); next != end; next = ordered.take())
+            {
+                try
+                {
+                    out.print(next.get());
+                }
+                catch (ExecutionException e)
+                {
+                    throw new IOException("checking a batch failed", e.getCause());
+                }
+            }
+            reader.join();
+            if (readError[0] != null)
+                throw readError[0];
+        }
+        finally
+        {
+            reader.interrupt();
+            pool.shutdownNow();
+        }
+        out.flush();
+    }
+
+    // One batch of lines, checked on a worker.
+    private class check implements Callable<String>
+    {
+        private final List<String> lines;
+
+        check(List<String> lines)
+        {
+            this.lines = lines;
+        }
+
+        public String call()
+        {
+            StringBuilder output = new StringBuilder();
+            for (String line : lines)
+            {
+                checker.checkLine(line, output);
+            }
+            return output.toString();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+// The generations hotswap published and retired, and the duration and sizes of the last load.
+public class reloadstats implements reloadstatsMBean {
+
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retired = new AtomicLong();
+    private volatile hotswap.generation last;
+
+    void published(hotswap.generation g)
+    {
+        if (last != null)
+            reloads.incrementAndGet();
+        last = g;
+    }
+
+    void failed()
+    {
+        failed.incrementAndGet();
+    }
+
+    void retired()
+    {
+        retired.incrementAndGet();
+    }
+
+    public int getVersion()
+    {
+        return last == null ? 0 : last.version();
+    }
+
+    // Generations published after the first.
+    public long getReloads()
+    {
+        return reloads.get();
+    }
+
+    public long getFailedReloads()
+    {
+        return failed.get();
+    }
+
+    // Replaced generations whose last in-flight check has finished.
+    public long getRetired()
+    {
+        return retired.get();
+    }
+
+    public long getLastReloadMillis()
+    {
+        return last == null ? 0 : last.loadMillis();
+    }
+
+    public int getDictionaryWords()
+    {
+        return last == null ? 0 : last.dictionaryWords();
+    }
+
+    public int getCorpusWords()
+    {
+        return last == null ? 0 : last.corpusWords();
+    }
+
+    public String toString()
+    {
+        return "reloads: version " + getVersion() + ", " + getReloads() + " reloads, " + getFailedReloads() + " failed, "
+             + getRetired() + " retired, last load " + getLastReloadMillis() + " ms for " + getDictionaryWords()
+             + " dictionary and " + getCorpusWords() + " corpus words";
+    }
+}
@@ -3,66 +3,77 @@ import java.util.*;
 
 public class spellchecker {
     
-    Hashtable<String,String> dictionary;   // To store all the words of the dictionary
-    boolean suggestWord ;           // To indicate whether the word is spelled correctly or not.
+    dawg dictionary;                // To store all the words of the dictionary (minimized word graph, see dawg)
+    boolean suggestWord ;           // To indicate whether the word is spelled correctly or not, set by checkWord.
+    hotswap engines;                // Checks the input lines, shareable between threads
+    spellengine lookup;             // checkWord's engine: dictionary only, it never asks for suggestions
     
+    static final String NEWLINE = System.getProperty("line.separator");
+    
+    // java spellchecker [workers]: with more than one worker the lines are checked by a pipeline, see pipeline.
     public static void main(String [] args) 
     {
-        spellchecker checker = new spellchecker();
+        spellchecker checker = new spellchecker(args.length > 0 ? Integer.parseInt(args[0]) : 1);
     }
     
     public spellchecker() 
     {
-        dictionary = new Hashtable<String,String>();
+        this(1);
+    }
+    
+    // A checker over an already loaded dictionary that checks no file of its own, for callers of checkWord.
+    spellchecker(dawg dictionary) 
+    {
+        this.dictionary = dictionary;
+        this.lookup = new spellengine(dictionary, null);
+    }
+    
+    public spellchecker(int workers) 
+    {
         System.out.println("******Welcome to the spell checker using Hashtable*****");
         System.out.println("The spell checker would check every line from the input file and then give suggestions if needed after each line. \n\n");
         
         try 
         {
             
-            //Read and store the words of the dictionary 
-            BufferedReader dictReader = new BufferedReader(new FileReader("dictionary.txt"));
-            
-            while (dictReader.ready()) 
-            {
-                String dictInput = dictReader.readLine() ;
-                String [] dict = dictInput.split("\\s");
-                
-                for(int i = 0; i < dict.length;i++) 
-                {
-                    // key and value are identical
-                    dictionary.put(dict[i], dict[i]);
-                }
-            }
-            dictReader.close();
+            // Read and store the words of the dictionary, and initialise a spelling suggest object
+            engines = engines();
+            // checkWord stays on the dictionary loaded at start
+            dictionary = (dawg)engines.current().dictionary();
+            lookup = new spellengine(dictionary, null);
             
            String file = "inputtext.txt";
            // Read and check the input from the text file 
             BufferedReader inputFile = new BufferedReader(new FileReader(file));
             System.out.println("Reading from "+file);
             
-            // Initialising a spelling suggest object
-            spellingsuggest suggest = new spellingsuggest("wordprobabilityDatabase.txt");
-         
-            // Reads input lines one by one
-            while ( inputFile.ready() ) 
+            if (workers > 1)
             {
-                String s = inputFile.readLine() ;
-                System.out.println (s);
-                String[] result = s.split("\\s");
-                
-                 for (int x=0; x<result.length; x++)
+                new pipeline(this, workers).run(inputFile, System.out);
+            }
+            else
+            {
+                // Reads input lines one by one
+                StringBuilder output = new StringBuilder();
+                while ( inputFile.ready() ) 
                 {
-                    suggestWord = true;
-                    String outputWord = checkWord(result[x]);
-                    
-                    if(suggestWord)
-                    {
-                        System.out.println("Suggestions for "+result[x]+" are:  "+suggest.correct(outputWord)+"\n");
-                    }
+                    output.setLength(0);
+                    checkLine(inputFile.readLine(), output);
+                    System.out.print(output);
                 }
             }
             inputFile.close();
+            engines.close();
+            spellingsuggest suggest = engines.current().suggest();
+            if (metrics.ENABLED)
+            {
+                if (suggest.cache() != null)
+                    System.err.println(suggest.cache());
+                System.err.println(metrics.report());
+                System.err.println(engines.stats());
+                if (suggest.prefilter() != null)
+                    System.err.println(suggest.prefilter());
+            }
         }
         catch (IOException e) 
         {
@@ -70,75 +81,79 @@ public class spellchecker {
             e.printStackTrace();
       //      System.exit(-1);
         }
+        catch (InterruptedException e) 
+        {
+            System.out.println("Interrupted while checking! ");
+            Thread.currentThread().interrupt();
+        }
     }
     
-    public String checkWord(String wordToCheck) 
+    /*
+      The dictionary and the frequency database of the current directory. Nothing watches their files: a long-running
+      host such as spellserver starts hotswap.watch() itself, a run over one input has no use for reloads.
+      The bigram model for context ranking is built if -Dspellchecker.context=true, or if context asks for it.
+    */
+    static hotswap engines() throws IOException
     {
-        String wordCheck, unpunctWord;
-        String word = wordToCheck.toLowerCase();
-        
-        // if word is found in dictionary then it is spelt correctly, so return as it is.
-        //note: inflections like "es","ing" provided in the dictionary itself.
-        if ((wordCheck = (String)dictionary.get(word)) != null)
-        {
-            suggestWord = false;            // no need to ask for suggestion for a correct word.
-            return wordCheck;
-        }
-        
-        // Removing punctuations at end of word and giving it a shot ("." or "." or "?!")
-        int length = word.length();
-        
- 
-         //Checking for the beginning of quotes(example: "she )
-        if (length > 1 && word.substring(0,1).equals("\"")) 
-        {
-            unpunctWord = word.substring(1, length);
-            
-            if ((wordCheck = (String)dictionary.get(unpunctWord)) != null)
+        return engines(spellingsuggest.CONTEXT);
+    }
+
+    static hotswap engines(final boolean context) throws IOException
+    {
+        hotswap engines = new hotswap(new hotswap.loader() {
+            public hotswap.generation load() throws IOException
             {
-                suggestWord = false;            // no need to ask for suggestion for a correct word.
-                return wordCheck ;
+                dawg words = dawg.load("dictionary.txt");
+                return new hotswap.generation(words, words.size(), new spellingsuggest("wordprobabilityDatabase.txt", spellingsuggest.EDITS,
+                                                                                         symmetricdelete.MAX_DISTANCE, spellingsuggest.CACHE_SIZE, context));
             }
-            else // not found
-                return unpunctWord;                  // removing the punctuations and returning
-        }
- 
-        // Checking if "." or ",",etc.. at the end is the problem(example: book. when book is present in the dictionary).
-        if( word.substring(length - 1).equals(".")  || word.substring(length - 1).equals(",") ||  word.substring(length - 1).equals("!")
-        ||  word.substring(length - 1).equals(";") || word.substring(length - 1).equals(":"))
+        });
+        return engines;
+    }
+    
+    /*
+      Appends what is printed for one input line to output: the line itself, then the suggestions for each misspelt word.
+      The whole line is checked and corrected against one generation of the dictionaries, even if a reload swaps in
+      the next one meanwhile.
+    */
+    public void checkLine(String line, StringBuilder output)
+    {
+        output.append(line).append(NEWLINE);
+        hotswap.generation g = engines.acquire();
+        try
         {
-            unpunctWord = word.substring(0, length-1);
-            
-            if ((wordCheck = (String)dictionary.get(unpunctWord)) != null)
-            {
-                suggestWord = false;            // no need to ask for suggestion for a correct word.
-                return wordCheck ;
-            }
-            else
+            spellengine engine = g.engine();
+            for (misspelling m : engine.check(line))
             {
-                return unpunctWord;                  // removing the punctuations and returning
+                output.append("Suggestions for ").append(m.token()).append(" are:  ")
+                      .append(spellingsuggest.CONTEXT ? engine.correct(m.word(), m.previous()) : engine.correct(m.word())).append(NEWLINE).append(NEWLINE);
             }
         }
-
-        // Checking for "!\"",etc ...  in the problem (example: watch!" when watch is present in the dictionary)
-        if (length > 2 && word.substring(length-2).equals(",\"")  || word.substring(length-2).equals(".\"") 
-            || word.substring(length-2).equals("?\"") || word.substring(length-2).equals("!\"") )
+        finally
         {
-            unpunctWord = word.substring(0, length-2);
-            
-            if ((wordCheck = (String)dictionary.get(unpunctWord)) != null)
-            {
-                suggestWord = false;            // no need to ask for suggestion for a correct word.
-                return wordCheck ;
-            }
-            else // not found
-                return unpunctWord;                  // removing the inflections and returning
+            engines.release(g);
         }
-        
-        
-        
-        // After all these checks too, word could not be corrected, hence it must be misspelt word. return and ask for suggestions
-        return word;
+    }
+    
+    /*
+      Checks one word the way checkLine checks the words of a line (see spellengine.isKnown): known as it is, or once
+      its leading and trailing punctuation is stripped. Returns the lower cased word, stripped of its punctuation
+      unless it is known with it, and sets suggestWord if it is misspelt.
+    */
+    public String checkWord(String wordToCheck) 
+    {
+        String word = wordToCheck.toLowerCase();
+        tokenizer words = new tokenizer(word);
+        if (!words.next())
+        {
+            suggestWord = false;            // no word at all
+            return word;
+        }
+        int known = lookup.known(words);
+        suggestWord = known == spellengine.UNKNOWN;
+        if (known == spellengine.AS_IS || words.wordLength() == words.length())
+            return word;
+        return words.normalized();
     }
     
 }
@@ -0,0 +1,90 @@
+import java.io.*;
+import java.net.*;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+  Load driver for spellserver. Opens connections to it, each driven by a thread of its own, and sends the lines of
+  a text file as check requests, one at a time per connection and cycling through the file, timing every request
+  from sending it to reading its reply. Every connection starts at the first line, like a burst of users checking
+  the same document, so their corrections of the same words coalesce on the server.
+  java spellclient [connections] [requests per connection] [file] [port]
+  prints the throughput and latency percentiles seen by the clients, then the stats of the server.
+*/
+public class spellclient {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    public static void main(String [] args) throws Exception
+    {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final int requests = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        String file = args.length > 2 ? args[2] : "inputtext.txt";
+        final int port = args.length > 3 ? Integer.parseInt(args[3]) : spellserver.PORT;
+
+        final ArrayList<String> lines = new ArrayList<String>();
+        BufferedReader text = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+        for (String line = text.readLine(); line != null; line = text.readLine())
+        {
+            if (!line.trim().isEmpty())
+                lines.add(line);
+        }
+        text.close();
+        if (lines.isEmpty())
+            throw new IOException(file + " has nothing to check");
+
+        final latencyhistogram latency = new latencyhistogram("client.check");
+        final LongAdder errors = new LongAdder();
+        Thread[] clients = new Thread[connections];
+        long start = System.nanoTime();
+        for (int c = 0; c < connections; c++)
+        {
+            clients[c] = new Thread("spellclient " + c) {
+                public void run()
+                {
+                    try
+                    {
+                        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF8));
+                        Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), UTF8));
+                        for (int i = 0; i < requests; i++)
+                        {
+                            long sent = System.nanoTime();
+                            out.append("check ").append(lines.get(i % lines.size())).append('\n').flush();
+                            String reply = in.readLine();
+                            latency.record(System.nanoTime() - sent);
+                            if (reply == null || !reply.startsWith("ok"))
+                                errors.increment();
+                        }
+                        out.append("quit\n").flush();
+                        socket.close();
+                    }
+                    catch (IOException e)
+                    {
+                        System.err.println(getName() + ": " + e);
+                        errors.increment();
+                    }
+                }
+            };
+            clients[c].start();
+        }
+        for (Thread client : clients)
+            client.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(connections + " connections, " + latency.getCount() + " requests in "
+                         + String.format("%.2f", seconds) + " s, " + Math.round(latency.getCount() / seconds)
+                         + " requests/s, " + errors.sum() + " errors");
+        System.out.println(latency);
+        System.out.println("p50 " + latency.getP50() / 1000 + " us, p99 " + latency.getP99() / 1000 + " us");
+
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF8));
+        Writer out = new OutputStreamWriter(socket.getOutputStream(), UTF8);
+        out.append("stats\nquit\n").flush();
+        String stats = in.readLine();
+        socket.close();
+        System.out.println("server " + (stats == null ? "closed the connection" : stats.replace('\t', ' ')));
+    }
+}
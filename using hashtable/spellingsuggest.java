@@ -1,101 +1,444 @@
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.regex.*;
 
 
 class spellingsuggest {
 
-	private final HashMap<String, Integer> DBWords = new HashMap<String, Integer>();
+	static final String NO_CORRECTION = "Sorry but no possible corrections found!";
+
+	// Suggestion backends that can be picked at construction.
+	static final int EDITS = 0;             // brute force edits(edits(word)) search below
+	static final int SYMMETRIC_DELETE = 1;  // precomputed deletes index, see symmetricdelete
+	static final int BK_TREE = 2;           // metric tree search up to a configurable distance, see bktree
+	static final int MYERS_SCAN = 3;        // bit-parallel distance scan of the words of nearby lengths, see myersscan
+
+	static final int CACHE_SIZE = 10000;    // default number of cached corrections, 0 turns the cache off
+	// -Dspellchecker.context=true ranks corrections by the word before them, see correct(word, previous); without
+	// it the bigram model is not built, unless a constructor asks for it
+	static final boolean CONTEXT = Boolean.getBoolean("spellchecker.context");
+	// With EDITS, words longer than this are searched at distance 2 by myersscan instead of edits of edits. Shorter
+	// words gain little, their edits of edits are few enough.
+	static final int SCAN_LENGTH = Integer.getInteger("spellchecker.scan.length", 7);
+
+	private final frequencytable DBWords;
+	private suggestengine engine;           // null for the EDITS backend
+	private myersscan scan;                 // distance 2 of words over SCAN_LENGTH for EDITS, null with other backends
+	private final suggestioncache cache;    // correct() results for this DBWords only, null when disabled
+	private final bigrammodel bigrams;      // which words follow which in the corpus, null if it could not be read
+	private final candidatefilter prefilter;    // asked before DBWords for every candidate edit, null when off
+	private final coalescer<String, String> searches = new coalescer<String, String>();    // cache misses being resolved
 
 	public spellingsuggest(String file) throws IOException 
 	{
+		this(file, EDITS);
+	}
+
+	public spellingsuggest(String file, int backend) throws IOException 
+	{
+		this(file, backend, symmetricdelete.MAX_DISTANCE);
+	}
+
+	// maxDistance (1 to 3) is only used by the BK_TREE backend, the others always search up to distance 2.
+	public spellingsuggest(String file, int backend, int maxDistance) throws IOException 
+	{
+		this(file, backend, maxDistance, CACHE_SIZE);
+	}
+
+	public spellingsuggest(String file, int backend, int maxDistance, int cacheSize) throws IOException 
+	{
+		this(file, backend, maxDistance, cacheSize, CONTEXT);
+	}
+
+	// With context, the bigram model correct(word, previous) ranks by is loaded or counted as well.
+	public spellingsuggest(String file, int backend, int maxDistance, int cacheSize, boolean context) throws IOException 
+	{
+	    frequencytable words = null;
+	    bigrammodel pairs = null;
 	    try
 	    {
-    		BufferedReader in = new BufferedReader(new FileReader(file));
-	    	Pattern p = Pattern.compile("\\w+");
-	    	for(String temp = ""; temp != null; temp = in.readLine() )      // Reading the dictionary and updating the probabalistic values accordingly
-	    	{                                                               // of the words according.
-	    		Matcher m = p.matcher(temp.toLowerCase());
-	    		while(m.find())
-	    		{
-	    		    DBWords.put( (temp = m.group()), DBWords.containsKey(temp) ? DBWords.get(temp) + 1 : 1 ); // This will serve as an indicator to
-	    	    }                                                                                             // probability of a word      
-	    	}
-	    	in.close();
+	        // A compiled snapshot (java snapshot corpus <file>) spares the regex pass over the whole corpus.
+	        snapshot compiled = snapshot.load(file, snapshot.CORPUS);
+	        if(compiled != null)
+	        {
+	            words = new frequencytable(compiled.words(), compiled.counts(), compiled.size());
+	            pairs = context ? compiled.bigrams() : null;
+	        }
+	        else
+	        {
+	            // the bigrams are counted in the same pass over the corpus as the words
+	            parallelcounter counter = new parallelcounter(file, context);
+	            words = new frequencytable(counter.count());
+	            pairs = counter.bigrams(words);
+	        }
 	    }
 	    catch(IOException e)
 	    {
 	        System.out.println("Uh-Oh Exception occured!");
 	        e.printStackTrace();
 	    }
+	    DBWords = words != null ? words : new frequencytable(new HashMap<String, Integer>());
+	    bigrams = pairs;
+	    prefilter = candidatefilter.of(DBWords, candidatefilter.BUDGET_KB);
+	    if(metrics.ENABLED && prefilter != null)
+	    {
+	        metrics.register("type=Prefilter", prefilter);
+	    }
+	    if(backend == SYMMETRIC_DELETE)
+	    {
+	        engine = new symmetricdelete(DBWords);
+	    }
+	    else if(backend == BK_TREE)
+	    {
+	        engine = new bktree(DBWords, maxDistance);
+	    }
+	    else if(backend == MYERS_SCAN)
+	    {
+	        engine = new myersscan(DBWords);
+	    }
+	    else
+	    {
+	        scan = new myersscan(DBWords);
+	    }
+	    // The cache is tied to this instance: new frequency data means a new spellingsuggest and so an empty cache.
+	    cache = cacheSize > 0 ? new suggestioncache(cacheSize) : null;
 	}
 
-    // Return an array containing all possible corrections to the word passed.
-	private final ArrayList<String> edits(String word) 
+	// Hit, miss and eviction counts of the correction cache, null when it is disabled.
+	public suggestioncache cache()
 	{
-		ArrayList<String> result = new ArrayList<String>();
-		
-		for(int i=0; i < word.length(); ++i) 
+		return cache;
+	}
+
+	// The bigram model ranking contextual corrections, null if there is none.
+	public bigrammodel bigrams()
+	{
+		return bigrams;
+	}
+
+	// The filter turning away candidate edits that are not corpus words, null when it is off.
+	public candidatefilter prefilter()
+	{
+		return prefilter;
+	}
+
+	// Number of distinct words in the frequency database.
+	public int size()
+	{
+		return DBWords.size();
+	}
+
+	// Counts the lower cased \w+ tokens of a corpus file on one thread; parallelcounter gives the same counts on all cores.
+	static HashMap<String, Integer> countWords(String file) throws IOException 
+	{
+		HashMap<String, Integer> DBWords = new HashMap<String, Integer>();
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		Pattern p = Pattern.compile("\\w+");
+		for(String temp = ""; temp != null; temp = in.readLine() )      // Reading the dictionary and updating the probabalistic values accordingly
+		{                                                               // of the words according.
+			Matcher m = p.matcher(temp.toLowerCase());
+			while(m.find())
+			{
+			    DBWords.put( (temp = m.group()), DBWords.containsKey(temp) ? DBWords.get(temp) + 1 : 1 ); // This will serve as an indicator to
+		    }                                                                                             // probability of a word      
+		}
+		in.close();
+		return DBWords;
+	}
+
+	/*
+	  Concurrent calls missing the cache for the same word share one search: the first one runs it, the others wait
+	  for its answer, so a burst of requests for a new misspelling costs a single search.
+	*/
+	public final String correct(final String word) 
+	{
+		if(DBWords.frequencyOf(word) != frequencytable.ABSENT) 
 		{
-		    result.add(word.substring(0, i) + word.substring(i+1)); 
+		    if(metrics.ENABLED)
+		    {
+		        metrics.CORRECTIONS.known();
+		    }
+		    return word;    // this is a perfectly safe word.
 		}
-		for(int i=0; i < word.length()-1; ++i) 
+		String result = cache == null ? resolve(word) : cache.get(word);
+		if(result == null)
 		{
-		    result.add(word.substring(0, i) + word.substring(i+1, i+2) + word.substring(i, i+1) + word.substring(i+2)); 
+		    result = searches.get(word, new Callable<String>() {
+		        public String call()
+		        {
+		            return remember(word, resolve(word));    // NO_CORRECTION is cached as well
+		        }
+		    });
 		}
-		for(int i=0; i < word.length(); ++i) 
-		{    
-		    for(char c='a'; c <= 'z'; ++c) 
+		if(metrics.ENABLED)
+		{
+		    count(word, result);
+		}
+		return result;
+	}
+
+	// Counts how correct() resolved word, by a search of its own, another thread's or the cache.
+	private static void count(String word, String result) 
+	{
+		if(result.equals(NO_CORRECTION))
+		{
+		    metrics.CORRECTIONS.noCorrection();
+		}
+		else
+		{
+		    metrics.CORRECTIONS.resolved(editdistance.damerau(word, result, true));
+		}
+	}
+
+	/*
+	  correct() with the word before it in the text: of the known words at the distance correct() finds one at, the
+	  one most likely to follow previous according to the bigram model. Where the corpus has none of them after
+	  previous, or never has previous at all, the answer is correct()'s, the most frequent one. A known word is
+	  left as it is, whatever comes before it.
+	*/
+	public final String correct(final String word, String previous) 
+	{
+		String result = correct(word);
+		if(bigrams == null || previous == null || result.equals(word) || result.equals(NO_CORRECTION))
+		{
+		    return result;
+		}
+		final int context = DBWords.find(previous);
+		if(context < 0 || !bigrams.hasFollowers(context))
+		{
+		    return result;
+		}
+		if(cache == null)
+		{
+		    return rerank(word, result, context);
+		}
+		final String key = previous + ' ' + word;     // corpus words are \w+, so no plain word looks like this
+		final String best = result;
+		String reranked = cache.get(key);
+		if(reranked == null)
+		{
+		    reranked = searches.get(key, new Callable<String>() {
+		        public String call()
+		        {
+		            return remember(key, rerank(word, best, context));
+		        }
+		    });
+		}
+		return reranked;
+	}
+
+	// Caches result under key, before the searches sharing it are let go, and returns it.
+	private String remember(String key, String result) 
+	{
+		cache.put(key, result);
+		return result;
+	}
+
+	// Cache misses that waited for another thread's search instead of running their own.
+	public long coalesced()
+	{
+		return searches.coalesced();
+	}
+
+	// The known word as far from word as best that scores highest after the context entry; best if none beats it.
+	private String rerank(String word, String best, int context) 
+	{
+		int distance = editdistance.damerau(word, best, true);
+		if(distance > 2)
+		{
+		    return best;    // found by a BK_TREE searching further than the edits below go
+		}
+		int entry = DBWords.find(best);
+		if(distance == 2 && scanned(word))
+		{
+		    for(int other : scan.at(word, 2))
 		    {
-		        result.add(word.substring(0, i) + String.valueOf(c) + word.substring(i+1));
+		        entry = likelier(other, entry, context);
 		    }
+		    return DBWords.word(entry);
 		}
-		for(int i=0; i <= word.length(); ++i) 
+		editgenerator list_edits = new editgenerator().reset(word, true);
+		editgenerator edits = new editgenerator();
+		while(list_edits.next()) 
 		{
-		    for(char c='a'; c <= 'z'; ++c) 
+		    if(distance == 1)
+		    {
+		        entry = likelier(find(list_edits), entry, context);
+		        continue;
+		    }
+		    for(edits.reset(list_edits.buffer(), 0, list_edits.length(), true); edits.next(); )
 		    {
-		        result.add(word.substring(0, i) + String.valueOf(c) + word.substring(i));
+		        entry = likelier(find(edits), entry, context);
 		    }
 		}
+		return DBWords.word(entry);
+	}
+
+	// candidate if it is a known word likelier than best to follow context, else best.
+	private int likelier(int candidate, int best, int context) 
+	{
+		return candidate >= 0 && bigrams.score(context, candidate, DBWords.count(candidate))
+		                         > bigrams.score(context, best, DBWords.count(best)) ? candidate : best;
+	}
+
+	// search(), timed by the distance it resolved word at when metrics are on; correct() counts the answer.
+	private String resolve(String word) 
+	{
+		if(!metrics.ENABLED)
+		{
+		    return search(word);
+		}
+		long start = System.nanoTime();
+		String result = search(word);
+		long elapsed = System.nanoTime() - start;
+		if(result.equals(NO_CORRECTION))
+		{
+		    metrics.NO_CORRECTION.record(elapsed);
+		}
+		else
+		{
+		    (editdistance.damerau(word, result, true) <= 1 ? metrics.DISTANCE1 : metrics.DISTANCE2).record(elapsed);
+		}
 		return result;
 	}
 
-	public final String correct(String word) 
+	/*
+	  The possible corrections of word are all its edits (deletion, transposition, replacement or insertion of one
+	  letter), spelt one after the other into the buffer of an editgenerator and probed in DBWords, so no
+	  String is built but the answer.
+	*/
+	private String search(String word) 
 	{
-		if(DBWords.containsKey(word)) 
+		if(engine != null)
 		{
-		    return word;    // this is a perfectly safe word.
+		    return engine.correct(word);
 		}
-		ArrayList<String> list_edits = edits(word);
-		HashMap<Integer, String> candidates = new HashMap<Integer, String>();
-		
-		for(String s : list_edits) // Iterating through the list of all possible corrections to the word.
+		editgenerator list_edits = new editgenerator().reset(word, false);
+		int best = -1;
+		while(list_edits.next()) // Iterating through the list of all possible corrections to the word.
 		{
-		    if(DBWords.containsKey(s)) 
-		    {
-		        candidates.put(DBWords.get(s),s);
-		    }
+		    best = better(list_edits, best);
 		} 
 		// In the first stage of error correction, any of the possible corrections from the list_edits are found in our word database DBWords 
 		// then we return the one verified correction with maximum probability.
-		if(candidates.size() > 0) 
+		if(best >= 0) 
+		{
+		     return DBWords.word(best);
+		}
+		if(scanned(word))
 		{
-		     return candidates.get(Collections.max(candidates.keySet()));
+		     // nothing at distance 1, so the answer is the most frequent word at distance 2, of several the one
+		     // better() would keep below, as candidate ranks them
+		     candidate top = null;
+		     for(int entry : scan.at(word, 2))
+		     {
+		         candidate found = new candidate(DBWords.word(entry), 2, DBWords.count(entry), word);
+		         if(top == null || found.compareTo(top) < 0)
+		         {
+		             top = found;
+		         }
+		     }
+		     return top != null ? top.word : NO_CORRECTION;
 		}
 		// In the second stage we apply the first stage method on the possible collections of the list_edits.By the second stage statistics 
 		// suggest we obtain an accuracy of about 98% !! 
-		for(String s : list_edits) 
+		editgenerator edits = new editgenerator();
+		for(list_edits.reset(word, false); list_edits.next(); ) 
 		{    
-		     for(String w : edits(s))
+		     for(edits.reset(list_edits.buffer(), 0, list_edits.length(), false); edits.next(); )
 		     { 
-		            if(DBWords.containsKey(w))
-		            { 
-		                candidates.put(DBWords.get(w),w);
-		            }
+		            best = better(edits, best);
 		     }
 		}
 		   
-		    return candidates.size() > 0 ? candidates.get(Collections.max(candidates.keySet())) : "Sorry but no possible corrections found!";
+		    return best >= 0 ? DBWords.word(best) : NO_CORRECTION;
+	}
+
+	// The DBWords entry the current edit spells, or -1; most edits are not words and only get as far as the prefilter.
+	private int find(editgenerator edit) 
+	{
+		if(prefilter != null && !prefilter.mightContain(edit.hash()))
+		{
+		    return -1;
+		}
+		int entry = DBWords.find(edit.buffer(), 0, edit.length(), edit.hash());
+		if(entry < 0 && prefilter != null)
+		{
+		    prefilter.falsePositive();
+		}
+		return entry;
+	}
+
+	// True if the distance 2 stage for word is a myersscan: edits of edits grow with the square of its length, the scan does not.
+	private boolean scanned(String word) 
+	{
+		return scan != null && word.length() > SCAN_LENGTH;
+	}
+
+	// The current edit if it is a known word at least as frequent as the best so far, else best: of equally frequent words the last one wins.
+	private int better(editgenerator edit, int best) 
+	{
+		int entry = find(edit);
+		return entry >= 0 && (best < 0 || DBWords.count(entry) >= DBWords.count(best)) ? entry : best;
+	}
+
+	/*
+	  Up to k corrections of word: the known words at distance 1 by decreasing frequency, then, if there are fewer
+	  than k of those, the ones at distance 2. A known word is its own single suggestion.
+	  The candidates go through a heap bounded to k (see topk) instead of a list of everything found, and distance 2
+	  is generated one distance-1 edit at a time, each distinct edit once, and only when distance 1 is not enough.
+	*/
+	public final List<String> suggest(String word, int k) 
+	{
+		if(engine != null)
+		{
+		    return engine.suggest(word, k);
+		}
+		if(DBWords.frequencyOf(word) != frequencytable.ABSENT) 
+		{
+		    return Collections.singletonList(word);
+		}
+		topk best = new topk(k);
+		editgenerator list_edits = new editgenerator().reset(word, true);
+		while(list_edits.next()) 
+		{
+		    offer(best, word, list_edits, 1);
+		}
+		if(best.full()) 
+		{
+		    return best.words();    // k words at distance 1, nothing at distance 2 can rank above them
+		}
+		if(scanned(word))
+		{
+		    for(int entry : scan.at(word, 2))
+		    {
+		        best.offer(new candidate(DBWords.word(entry), 2, DBWords.count(entry), word));
+		    }
+		    return best.words();
+		}
+		editgenerator edits = new editgenerator();
+		for(list_edits.reset(word, true); list_edits.next(); ) 
+		{    
+		    for(edits.reset(list_edits.buffer(), 0, list_edits.length(), true); edits.next(); )
+		    { 
+		        offer(best, word, edits, 2);
+		    }
+		}
+		return best.words();
+	}
+
+	private void offer(topk best, String word, editgenerator edit, int distance) 
+	{
+		int entry = find(edit);
+		if(entry >= 0) 
+		{
+		    String w = DBWords.word(entry);
+		    if(!best.contains(w))
+		    {
+		        best.offer(new candidate(w, distance, DBWords.count(entry), word));
+		    }
+		}
 	}
 
 	public static void main(String [] args) throws IOException 
@@ -0,0 +1,219 @@
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.*;
+import java.nio.charset.Charset;
+import java.util.concurrent.*;
+
+/*
+  Long-running spell checking server: the dictionary and the frequency database are loaded once, and reloaded when
+  their files change (see hotswap), to serve any number of documents over a line protocol on a localhost socket,
+  instead of one java spellchecker run, and one load, per document.
+  Every request is one line and gets one line back, its fields separated by tabs:
+    check <text>                  ok, then <offset> <token> <correction> for each misspelt word of text
+    correct <word> [<previous>]   ok <correction>, ranked by the word before it if given
+    suggest <k> <word>            ok, then up to k (at least 1) suggestions, best first
+    stats                         ok <request latency percentiles, cache and coalescing counts>
+    quit                          closes the connection
+  Anything else, and a request that fails, gets error <reason>; the connection stays open either way. Requests may
+  be pipelined; the replies come back in request order.
+  Each connection is served by a thread of its own, a virtual one where the JVM has them (Java 21 and later).
+  Concurrent corrections of the same word share one search, see spellingsuggest.correct().
+*/
+public class spellserver {
+
+    static final int PORT = 7340;
+    static final int MAX_SUGGESTIONS = 100;     // the most a suggest request gets, whatever k it asks for
+    static final long RELOAD_PERIOD = 5000;     // ms between looks at the dictionary files for changes
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final hotswap engines;
+    private final ServerSocket socket;
+    private final ExecutorService connections;
+    private final latencyhistogram latency = new latencyhistogram("server.request");
+
+    // java spellserver [port]: serves the dictionaries of the current directory until killed.
+    public static void main(String [] args) throws IOException
+    {
+        hotswap engines = spellchecker.engines(true);    // its requests may carry the word before
+        engines.watch(RELOAD_PERIOD, "dictionary.txt", "wordprobabilityDatabase.txt");
+        final spellserver server = new spellserver(engines, args.length > 0 ? Integer.parseInt(args[0]) : PORT);
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            public void run()
+            {
+                System.err.println(server.stats());
+            }
+        });
+        System.out.println("Serving " + server.engines.current() + " on " + server.socket.getLocalSocketAddress());
+        server.serve();
+    }
+
+    spellserver(hotswap engines, int port) throws IOException
+    {
+        this.engines = engines;
+        socket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        connections = connectionThreads();
+        if (metrics.ENABLED)
+            metrics.register("type=Latency,stage=" + latency.stage(), latency);
+    }
+
+    // A virtual thread per connection if the JVM has them, looked up by name so this still builds for Java 8.
+    private static ExecutorService connectionThreads()
+    {
+        try
+        {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService)virtual.invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return Executors.newCachedThreadPool(hotswap.daemon("spellserver connection"));
+        }
+    }
+
+    int port()
+    {
+        return socket.getLocalPort();
+    }
+
+    // Accepts connections until close().
+    void serve() throws IOException
+    {
+        try
+        {
+            while (true)
+            {
+                final Socket client = socket.accept();
+                connections.execute(new Runnable() {
+                    public void run()
+                    {
+                        handle(client);
+                    }
+                });
+            }
+        }
+        catch (SocketException e)
+        {
+            if (!socket.isClosed())
+                throw e;
+        }
+        finally
+        {
+            connections.shutdown();
+        }
+    }
+
+    void close() throws IOException
+    {
+        socket.close();
+    }
+
+    private void handle(Socket client)
+    {
+        try
+        {
+            BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), UTF8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), UTF8));
+            StringBuilder reply = new StringBuilder();
+            for (String request = in.readLine(); request != null && !request.equals("quit"); request = in.readLine())
+            {
+                long start = System.nanoTime();
+                reply.setLength(0);
+                try
+                {
+                    answer(request, reply);
+                }
+                catch (RuntimeException e)
+                {
+                    // a bug or a bad engine state fails this request, not the others on the connection
+                    reply.setLength(0);
+                    reply.append("error\t").append(String.valueOf(e).replace('\n', ' ').replace('\r', ' '));
+                }
+                latency.record(System.nanoTime() - start);
+                out.append(reply).append('\n');
+                if (!in.ready())
+                    out.flush();        // once per batch of pipelined requests
+            }
+            out.flush();
+        }
+        catch (IOException e)
+        {
+            // the client went away, nothing left to answer
+        }
+        finally
+        {
+            try
+            {
+                client.close();
+            }
+            catch (IOException e)
+            {
+            }
+        }
+    }
+
+    // Appends the reply to request, without its line end.
+    void answer(String request, StringBuilder reply)
+    {
+        int space = request.indexOf(' ');
+        String command = space < 0 ? request : request.substring(0, space);
+        String argument = space < 0 ? "" : request.substring(space + 1);
+        if (command.equals("stats"))
+        {
+            reply.append("ok\t").append(stats());
+            return;
+        }
+        String[] words = argument.trim().split(" +");
+        hotswap.generation g = engines.acquire();
+        try
+        {
+            spellengine engine = g.engine();
+            if (command.equals("check"))
+            {
+                reply.append("ok");
+                for (misspelling m : engine.check(argument))
+                {
+                    reply.append('\t').append(m.offset()).append('\t').append(m.token())
+                         .append('\t').append(engine.correct(m.word(), m.previous()));
+                }
+            }
+            else if (command.equals("correct") && !words[0].isEmpty() && words.length <= 2)
+            {
+                reply.append("ok\t").append(engine.correct(words[0].toLowerCase(), words.length > 1 ? words[1].toLowerCase() : null));
+            }
+            else if (command.equals("suggest") && words.length == 2)
+            {
+                int k = Math.min(Integer.parseInt(words[0]), MAX_SUGGESTIONS);
+                if (k < 1)
+                {
+                    reply.append("error\tk must be at least 1: ").append(words[0]);
+                    return;
+                }
+                reply.append("ok");
+                for (String suggestion : engine.suggest(words[1].toLowerCase(), k))
+                    reply.append('\t').append(suggestion);
+            }
+            else
+            {
+                reply.append("error\tunknown request: ").append(request);
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            reply.setLength(0);
+            reply.append("error\tnot a number: ").append(words[0]);
+        }
+        finally
+        {
+            engines.release(g);
+        }
+    }
+
+    // Latency percentiles of the requests served so far, and what the correction cache and coalescing saved.
+    String stats()
+    {
+        spellingsuggest suggest = engines.current().suggest();
+        return latency + ", " + suggest.coalesced() + " corrections coalesced, "
+             + (suggest.cache() != null ? suggest.cache().toString() : "no cache") + ", " + engines.current();
+    }
+}
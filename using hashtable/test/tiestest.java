@@ -0,0 +1,76 @@
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/*
+  Of equally frequent corrections every backend, and suggest(word, 1), picks the one spellingsuggest.correct() keeps
+  with the edits: the one they spell last, not the first alphabetically.
+*/
+public class tiestest {
+
+    // every word once, so all the corrections of a misspelling tie
+    private static final String[] WORDS = { "cap", "car", "cat", "cart", "beaching", "reaching", "teaching" };
+
+    private static File corpus;
+    private static spellingsuggest[] backends;
+
+    @BeforeClass
+    public static void load() throws IOException
+    {
+        corpus = File.createTempFile("ties", ".txt");
+        PrintWriter out = new PrintWriter(new FileWriter(corpus));
+        for (String word : WORDS)
+            out.println(word);
+        out.close();
+        backends = new spellingsuggest[] {
+            new spellingsuggest(corpus.getPath(), spellingsuggest.EDITS, 2, 0, false),
+            new spellingsuggest(corpus.getPath(), spellingsuggest.SYMMETRIC_DELETE, 2, 0, false),
+            new spellingsuggest(corpus.getPath(), spellingsuggest.BK_TREE, 2, 0, false),
+            new spellingsuggest(corpus.getPath(), spellingsuggest.MYERS_SCAN, 2, 0, false)
+        };
+    }
+
+    @AfterClass
+    public static void delete()
+    {
+        corpus.delete();
+    }
+
+    @Test
+    public void lastSpeltWins()
+    {
+        assertEquals("cat", backends[0].correct("caz"));        // replaced by p, r, t in that order
+        assertEquals("cat", backends[0].correct("cxx"));        // at distance 2
+        assertEquals("teaching", backends[0].correct("xeachinx"));     // longer than SCAN_LENGTH
+    }
+
+    @Test
+    public void backendsAgree()
+    {
+        for (String word : WORDS)
+        {
+            for (int i = 0; i < word.length(); i++)
+            {
+                for (char c = 'a'; c <= 'z'; c++)
+                {
+                    agree(word.substring(0, i) + c + word.substring(i + 1));
+                    agree(word.substring(0, i) + c + c + word.substring(i + 1));
+                }
+                agree(word.substring(0, i) + word.substring(i + 1));
+            }
+        }
+    }
+
+    private static void agree(String misspelt)
+    {
+        String expected = backends[0].correct(misspelt);
+        for (spellingsuggest backend : backends)
+        {
+            assertEquals(misspelt, expected, backend.correct(misspelt));
+            List<String> first = backend.suggest(misspelt, 1);
+            assertEquals(misspelt, expected, first.isEmpty() ? spellingsuggest.NO_CORRECTION : first.get(0));
+        }
+    }
+}
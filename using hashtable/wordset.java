@@ -0,0 +1,14 @@
+// A loaded, read-only dictionary that spellengine can check words against, e.g. dawg or a Bloom filter.
+interface wordset {
+
+    // True if word (already lower cased) is in the dictionary.
+    boolean contains(String word);
+
+    int WHOLE = 1, PREFIX = 2;      // bits of containsLowerCase(text, start, prefixEnd, end)
+
+    // True if text[start..end), lower cased char by char, is in the dictionary. Only used for plain ASCII text.
+    boolean containsLowerCase(CharSequence text, int start, int end);
+
+    // WHOLE if text[start..end) is in the dictionary, lower cased the same way, plus PREFIX if text[start..prefixEnd) is.
+    int containsLowerCase(CharSequence text, int start, int prefixEnd, int end);
+}